@@ -0,0 +1,242 @@
+package nl.bryansuk.foundationapi;
+
+import nl.bryansuk.foundationapi.exceptions.ItemManagerException;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+
+import java.util.UUID;
+
+/**
+ * Central cooldown storage for CustomItems, keyed by player and item id.
+ * <p>
+ * Cooldowns are kept in an open addressing table of primitive arrays, so storing or checking a cooldown
+ * never boxes. Expiry is measured in server ticks, expired entries are treated as absent on lookup and
+ * are dropped from the table by a periodic purge.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class CooldownManager implements Runnable {
+
+    private static final int MIN_CAPACITY = 64;
+    private static final long EMPTY = 0;
+    private static final long TOMBSTONE = -1;
+
+    private long[] mostBits;
+    private long[] leastBits;
+    private int[] itemIds;
+    private long[] expiry;
+    private int size;
+    private int used;
+
+    CooldownManager() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Puts a CustomItem on cooldown for a player.
+     *
+     * @param player The player.
+     * @param item The CustomItem.
+     * @param ticks The length of the cooldown in ticks.
+     */
+    public void setCooldown(Player player, CustomItem item, int ticks){
+        if (player == null || item == null) return;
+        if (ticks <= 0) {
+            clearCooldown(player, item);
+            return;
+        }
+
+        UUID uuid = player.getUniqueId();
+        put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), idOf(item), currentTick() + ticks);
+
+        if (item.displaysClientCooldown()) player.setCooldown(item.getCustomItem().getType(), ticks);
+    }
+
+    /**
+     * Retrieves the remaining cooldown of a CustomItem for a player.
+     *
+     * @param player The player.
+     * @param item The CustomItem.
+     * @return The remaining ticks, or 0 if the item is not on cooldown.
+     */
+    public int getRemainingCooldown(Player player, CustomItem item){
+        if (player == null || item == null) return 0;
+
+        UUID uuid = player.getUniqueId();
+        int index = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), idOf(item));
+        if (index < 0) return 0;
+
+        long remaining = expiry[index] - currentTick();
+        if (remaining <= 0) {
+            remove(index);
+            return 0;
+        }
+        return (int) remaining;
+    }
+
+    /**
+     * Checks whether a CustomItem is on cooldown for a player.
+     *
+     * @param player The player.
+     * @param item The CustomItem.
+     * @return True if the item is on cooldown.
+     */
+    public boolean isOnCooldown(Player player, CustomItem item){
+        return getRemainingCooldown(player, item) > 0;
+    }
+
+    /**
+     * Removes the cooldown of a CustomItem for a player.
+     *
+     * @param player The player.
+     * @param item The CustomItem.
+     */
+    public void clearCooldown(Player player, CustomItem item){
+        if (player == null || item == null) return;
+
+        UUID uuid = player.getUniqueId();
+        int index = find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), idOf(item));
+        if (index < 0) return;
+
+        remove(index);
+        if (item.displaysClientCooldown()) player.setCooldown(item.getCustomItem().getType(), 0);
+    }
+
+    /**
+     * Retrieves the amount of stored cooldowns, including expired ones that have not been purged yet.
+     *
+     * @return The amount of stored cooldowns.
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Drops all expired cooldowns and shrinks the table when it became mostly empty.
+     */
+    @Override
+    public void run() {
+        long now = currentTick();
+        int live = 0;
+        for (int i = 0; i < expiry.length; i++) {
+            if (expiry[i] > now) live++;
+        }
+        rehash(capacityFor(live), now);
+    }
+
+    /*
+            Open addressing table
+     */
+
+    private int find(long most, long least, int item) {
+        int mask = expiry.length - 1;
+        int index = hash(most, least, item) & mask;
+
+        while (true) {
+            long value = expiry[index];
+            if (value == EMPTY) return -1;
+            if (value != TOMBSTONE && itemIds[index] == item && mostBits[index] == most && leastBits[index] == least) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    private void put(long most, long least, int item, long until) {
+        int mask = expiry.length - 1;
+        int index = hash(most, least, item) & mask;
+        int free = -1;
+
+        while (true) {
+            long value = expiry[index];
+            if (value == EMPTY) break;
+            if (value == TOMBSTONE) {
+                if (free < 0) free = index;
+            } else if (itemIds[index] == item && mostBits[index] == most && leastBits[index] == least) {
+                expiry[index] = until;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        if (free < 0) {
+            free = index;
+            used++;
+        }
+
+        mostBits[free] = most;
+        leastBits[free] = least;
+        itemIds[free] = item;
+        expiry[free] = until;
+        size++;
+
+        if (used * 2 > expiry.length) rehash(capacityFor(size), currentTick());
+    }
+
+    private void remove(int index) {
+        expiry[index] = TOMBSTONE;
+        size--;
+    }
+
+    private void rehash(int capacity, long now) {
+        long[] oldMost = mostBits;
+        long[] oldLeast = leastBits;
+        int[] oldItems = itemIds;
+        long[] oldExpiry = expiry;
+
+        allocate(capacity);
+        int mask = capacity - 1;
+
+        for (int i = 0; i < oldExpiry.length; i++) {
+            if (oldExpiry[i] <= now) continue;
+
+            int index = hash(oldMost[i], oldLeast[i], oldItems[i]) & mask;
+            while (expiry[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+
+            mostBits[index] = oldMost[i];
+            leastBits[index] = oldLeast[i];
+            itemIds[index] = oldItems[i];
+            expiry[index] = oldExpiry[i];
+            size++;
+            used++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        mostBits = new long[capacity];
+        leastBits = new long[capacity];
+        itemIds = new int[capacity];
+        expiry = new long[capacity];
+        size = 0;
+        used = 0;
+    }
+
+    private static int capacityFor(int entries) {
+        // Keep the load factor at or below a quarter after a rehash
+        int capacity = MIN_CAPACITY;
+        while (capacity < entries * 4) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long most, long least, int item) {
+        long hash = most * 0x9E3779B97F4A7C15L ^ least ^ ((long) item << 32 | item);
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+
+    private static int idOf(CustomItem item) {
+        if (item.getId() < 0) throw new ItemManagerException(item.getClass().getSimpleName() + " is not registered!");
+        return item.getId();
+    }
+
+    private static long currentTick() {
+        // Offset by one so a stored expiry can never collide with the empty marker
+        return Bukkit.getCurrentTick() + 1L;
+    }
+}
@@ -0,0 +1,163 @@
+package nl.bryansuk.foundationapi;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.inventory.ItemStack;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-lived cache of crafting grid evaluations.
+ * <p>
+ * PrepareItemCraftEvent fires on every change to a grid. A grid is keyed by the viewer and the material,
+ * presence of meta and custom item id of every slot, amounts are left out so a shift-click craft that only
+ * lowers the amounts keeps hitting the cache. When a grid returns to a state that was evaluated shortly before,
+ * the result decided by the CustomItem is reused without resolving the result or calling the hook again.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class CraftingCache {
+
+    private static final int MAX_ENTRIES = 512;
+    private static final int LIFETIME_TICKS = 100;
+
+    private final Map<GridKey, Entry> entries = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<GridKey, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    CraftingCache() {
+    }
+
+    /**
+     * Clears all cached evaluations, for example after items or recipes changed.
+     */
+    public void invalidate(){
+        entries.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size(){
+        return entries.size();
+    }
+
+    GridKey key(HumanEntity viewer, ItemStack[] matrix) {
+        UUID uuid = viewer.getUniqueId();
+        long[] slots = new long[matrix.length];
+
+        for (int i = 0; i < matrix.length; i++) {
+            ItemStack stack = matrix[i];
+            if (stack == null || stack.getType().isAir()) continue;
+
+            // Only slots with meta can hold a custom item, their id is read from the meta without offering
+            // the stack to the migrator, the handler resolves the stack itself on a miss
+            boolean hasMeta = stack.hasItemMeta();
+            CustomItem item = hasMeta ? ItemManager.getCustomItem(stack.getItemMeta()) : null;
+            int id = item == null ? -1 : item.getId();
+            slots[i] = (long) (stack.getType().ordinal() + 1) << 33 | (hasMeta ? 1L << 32 : 0) | (id + 1L);
+        }
+        return new GridKey(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), slots);
+    }
+
+    @Nullable Entry get(GridKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiry < Bukkit.getCurrentTick()) {
+            if (entry != null) entries.remove(key);
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry;
+    }
+
+    void put(GridKey key, @Nullable CustomItem item, @Nullable ItemStack result, boolean changed) {
+        ItemStack copy = result == null ? null : result.clone();
+        entries.put(key, new Entry(item, copy, changed, Bukkit.getCurrentTick() + LIFETIME_TICKS));
+    }
+
+    static final class GridKey {
+        private final long viewerMost;
+        private final long viewerLeast;
+        private final long[] slots;
+        private final int hash;
+
+        private GridKey(long viewerMost, long viewerLeast, long[] slots) {
+            this.viewerMost = viewerMost;
+            this.viewerLeast = viewerLeast;
+            this.slots = slots;
+            this.hash = 31 * Long.hashCode(viewerMost ^ viewerLeast) + Arrays.hashCode(slots);
+        }
+
+        /**
+         * Retrieves the custom item id in a slot of the grid, or -1 for empty and vanilla slots.
+         */
+        int customId(int slot) {
+            return (int) (slots[slot] & 0xffffffffL) - 1;
+        }
+
+        int size() {
+            return slots.length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof GridKey other)) return false;
+            return hash == other.hash
+                    && viewerMost == other.viewerMost
+                    && viewerLeast == other.viewerLeast
+                    && Arrays.equals(slots, other.slots);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    static final class Entry {
+        private final @Nullable CustomItem item;
+        private final @Nullable ItemStack result;
+        private final boolean changed;
+        private final long expiry;
+
+        private Entry(@Nullable CustomItem item, @Nullable ItemStack result, boolean changed, long expiry) {
+            this.item = item;
+            this.result = result;
+            this.changed = changed;
+            this.expiry = expiry;
+        }
+
+        @Nullable CustomItem item() {
+            return item;
+        }
+
+        /**
+         * Whether the CustomItem changed the result, only then the cached result has to be applied.
+         */
+        boolean changed() {
+            return changed;
+        }
+
+        @Nullable ItemStack result() {
+            return result == null ? null : result.clone();
+        }
+    }
+}
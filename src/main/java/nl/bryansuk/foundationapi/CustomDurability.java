@@ -0,0 +1,157 @@
+package nl.bryansuk.foundationapi;
+
+import net.kyori.adventure.text.Component;
+import org.bukkit.NamespacedKey;
+import org.bukkit.event.player.PlayerItemDamageEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Durability for CustomItems beyond the vanilla durability of their material.
+ * <p>
+ * The durability is stored as a single integer in the persistent data of the item. The lore line and
+ * the durability bar are only rewritten when their displayed value changes, and every update is done
+ * in a single meta round trip. The durability line is kept as the last line of the lore.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class CustomDurability {
+
+    private final NamespacedKey durabilityKey;
+
+    CustomDurability(JavaPlugin plugin) {
+        durabilityKey = new NamespacedKey(plugin, "durability");
+    }
+
+    public NamespacedKey getDurabilityKey() {
+        return durabilityKey;
+    }
+
+    /**
+     * Retrieves the custom durability of an ItemStack.
+     *
+     * @param stack The ItemStack.
+     * @return The durability, or -1 if the stack has no custom durability.
+     */
+    public int getDurability(ItemStack stack){
+        if (stack == null || !stack.hasItemMeta()) return -1;
+
+        Integer durability = stack.getItemMeta().getPersistentDataContainer().get(durabilityKey, PersistentDataType.INTEGER);
+        return durability == null ? -1 : durability;
+    }
+
+    /**
+     * Sets the custom durability of an ItemStack, clamped between 0 and the maximum of its CustomItem.
+     *
+     * @param stack The ItemStack.
+     * @param durability The new durability.
+     */
+    public void setDurability(ItemStack stack, int durability){
+        CustomItem item = ItemManager.getCustomItem(stack);
+        if (item == null || item.getMaxCustomDurability() <= 0) return;
+
+        int max = item.getMaxCustomDurability();
+        ItemMeta meta = stack.getItemMeta();
+        int current = meta.getPersistentDataContainer().getOrDefault(durabilityKey, PersistentDataType.INTEGER, max);
+
+        write(item, stack, meta, current, Math.max(0, Math.min(max, durability)), max);
+        stack.setItemMeta(meta);
+    }
+
+    /**
+     * Writes the initial durability, lore line and bar to a freshly created item.
+     */
+    void initialize(CustomItem item, ItemStack stack) {
+        int max = item.getMaxCustomDurability();
+        if (max <= 0) return;
+
+        ItemMeta meta = stack.getItemMeta();
+        meta.getPersistentDataContainer().set(durabilityKey, PersistentDataType.INTEGER, max);
+
+        Component line = item.renderDurability(max, max);
+        if (line != null) {
+            List<Component> lore = meta.hasLore() ? new ArrayList<>(meta.lore()) : new ArrayList<>();
+            lore.add(line);
+            meta.lore(lore);
+        }
+        stack.setItemMeta(meta);
+    }
+
+    /**
+     * Puts the durability, lore line and bar of a meta back to full, the way a freshly created item shows them.
+     */
+    void restore(CustomItem item, ItemStack stack, ItemMeta meta) {
+        int max = item.getMaxCustomDurability();
+        if (max <= 0) return;
+
+        int current = meta.getPersistentDataContainer().getOrDefault(durabilityKey, PersistentDataType.INTEGER, max);
+        write(item, stack, meta, current, max, max);
+    }
+
+    /**
+     * Applies the damage of the event to the custom durability instead of the vanilla durability.
+     * Once the custom durability runs out the vanilla damage is raised so the item breaks as usual.
+     */
+    void damage(CustomItem item, PlayerItemDamageEvent event) {
+        int max = item.getMaxCustomDurability();
+        if (max <= 0) return;
+
+        ItemStack stack = event.getItem();
+        ItemMeta meta = stack.getItemMeta();
+        int current = meta.getPersistentDataContainer().getOrDefault(durabilityKey, PersistentDataType.INTEGER, max);
+        int next = Math.max(0, current - event.getDamage());
+
+        if (next == 0) {
+            event.setDamage(vanillaMaxDamage(stack, meta));
+            return;
+        }
+
+        event.setCancelled(true);
+        write(item, stack, meta, current, next, max);
+        stack.setItemMeta(meta);
+    }
+
+    private void write(CustomItem item, ItemStack stack, ItemMeta meta, int current, int next, int max) {
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        container.set(durabilityKey, PersistentDataType.INTEGER, next);
+
+        Component before = item.renderDurability(current, max);
+        Component after = item.renderDurability(next, max);
+        if (after != null && !Objects.equals(before, after)) {
+            List<Component> lore = meta.hasLore() ? new ArrayList<>(meta.lore()) : new ArrayList<>();
+            if (lore.isEmpty()) {
+                lore.add(after);
+            } else {
+                lore.set(lore.size() - 1, after);
+            }
+            meta.lore(lore);
+        }
+
+        if (meta instanceof Damageable damageable) {
+            int vanillaMax = vanillaMaxDamage(stack, meta);
+            if (vanillaMax <= 0) return;
+
+            int bar = bar(next, max, vanillaMax);
+            if (damageable.getDamage() != bar) damageable.setDamage(bar);
+        }
+    }
+
+    private static int bar(int durability, int max, int vanillaMax) {
+        // Never show a full bar as broken while there is durability left
+        int remaining = Math.max(1, Math.round((float) durability * vanillaMax / max));
+        return vanillaMax - remaining;
+    }
+
+    private static int vanillaMaxDamage(ItemStack stack, ItemMeta meta) {
+        if (meta instanceof Damageable damageable && damageable.hasMaxDamage()) return damageable.getMaxDamage();
+        return stack.getType().getMaxDurability();
+    }
+}
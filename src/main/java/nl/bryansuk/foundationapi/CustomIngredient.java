@@ -0,0 +1,96 @@
+package nl.bryansuk.foundationapi;
+
+import nl.bryansuk.foundationapi.exceptions.ItemManagerException;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.RecipeChoice;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Recipe ingredient that matches a CustomItem by its id instead of full stack equality.
+ * <p>
+ * The recipe itself is registered with a material choice, the ItemManager checks the custom item ids of
+ * the grid when the recipe is prepared. Other persistent data can optionally be checked with predicates.
+ * Bind ingredients to a recipe through the {@link IngredientIndex}.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public final class CustomIngredient {
+
+    private final CustomItem item;
+    private final List<FieldPredicate<?, ?>> predicates;
+
+    private CustomIngredient(CustomItem item, List<FieldPredicate<?, ?>> predicates) {
+        this.item = item;
+        this.predicates = predicates;
+    }
+
+    /**
+     * Creates an ingredient that matches any stack of a CustomItem.
+     *
+     * @param item The CustomItem.
+     * @return The ingredient.
+     */
+    public static CustomIngredient of(CustomItem item){
+        if (item == null) throw new ItemManagerException("Ingredient item cannot be null!");
+        return new CustomIngredient(item, List.of());
+    }
+
+    /**
+     * Adds a check on a persistent data field of the ingredient.
+     *
+     * @param key The key of the field.
+     * @param dataType The persistent data type of the field.
+     * @param predicate The check the value must pass, a missing value never passes.
+     * @param <P> The primitive type of the field.
+     * @param <C> The complex type of the field.
+     * @return A copy of this ingredient with the check added.
+     */
+    public <P, C> CustomIngredient where(NamespacedKey key, PersistentDataType<P, C> dataType, Predicate<C> predicate){
+        List<FieldPredicate<?, ?>> copy = new ArrayList<>(predicates);
+        copy.add(new FieldPredicate<>(key, dataType, predicate));
+        return new CustomIngredient(item, List.copyOf(copy));
+    }
+
+    public CustomItem getItem() {
+        return item;
+    }
+
+    /**
+     * Retrieves the choice to register in the Bukkit recipe, it only checks the material.
+     *
+     * @return The material choice of the ingredient.
+     */
+    public RecipeChoice choice(){
+        return new RecipeChoice.MaterialChoice(item.getCustomItem().getType());
+    }
+
+    boolean hasPredicates() {
+        return !predicates.isEmpty();
+    }
+
+    boolean testPredicates(ItemStack stack) {
+        if (predicates.isEmpty()) return true;
+        if (stack == null || !stack.hasItemMeta()) return false;
+
+        ItemMeta meta = stack.getItemMeta();
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        for (FieldPredicate<?, ?> predicate : predicates) {
+            if (!predicate.test(container)) return false;
+        }
+        return true;
+    }
+
+    private record FieldPredicate<P, C>(NamespacedKey key, PersistentDataType<P, C> dataType, Predicate<C> predicate) {
+        private boolean test(PersistentDataContainer container) {
+            C value = container.get(key, dataType);
+            return value != null && predicate.test(value);
+        }
+    }
+}
@@ -4,37 +4,206 @@ import io.papermc.paper.event.block.CompostItemEvent;
 import io.papermc.paper.event.entity.EntityCompostItemEvent;
 import io.papermc.paper.event.entity.EntityDamageItemEvent;
 import io.papermc.paper.event.player.*;
+import net.kyori.adventure.text.Component;
+import nl.bryansuk.foundationapi.exceptions.ItemManagerException;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.text.format.TextDecoration;
+import org.bukkit.entity.Player;
 import org.bukkit.event.block.BlockDropItemEvent;
 import org.bukkit.event.enchantment.EnchantItemEvent;
 import org.bukkit.event.enchantment.PrepareItemEnchantEvent;
 import org.bukkit.event.entity.*;
 import org.bukkit.event.inventory.*;
 import org.bukkit.event.player.*;
+import org.bukkit.inventory.EquipmentSlot;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Recipe;
 import org.bukkit.persistence.PersistentDataType;
 
+import javax.annotation.Nullable;
 import java.util.List;
 
 public abstract class CustomItem {
     private final ItemStack itemStack;
+    private final List<ItemMigration> migrationChain;
+    private int id = -1;
 
     abstract ItemStackCreator createItemData();
     abstract List<Recipe> getRecipes();
 
     public CustomItem() {
+        FlightEvents.Build flight = FlightEvents.beginBuild();
         ItemStackCreator itemStackCreator = createItemData();
         itemStackCreator.addPersistentData(
                 ItemManager.getNamespacedKey(),
                 PersistentDataType.STRING,
                 getClass().getSimpleName());
+
+        migrationChain = List.copyOf(getMigrations());
+        if (!migrationChain.isEmpty()) {
+            itemStackCreator.addPersistentData(
+                    ItemManager.getItemMigrator().getVersionKey(),
+                    PersistentDataType.INTEGER,
+                    migrationChain.size());
+        }
         itemStack = itemStackCreator.result();
+        ItemManager.getCustomDurability().initialize(this, itemStack);
+        FlightEvents.endBuild(flight, "CustomItem", getClass().getName());
     }
 
     public ItemStack getCustomItem() {
         return itemStack;
     }
 
+    /**
+     * Creates a new ItemStack of this item. Tracked items get their own instance UUID when instance tracking
+     * is enabled, see {@link ItemManager#useInstanceTracking()}.
+     *
+     * @return A copy of the template.
+     */
+    public ItemStack createItem() {
+        return createItem(itemStack.getAmount());
+    }
+
+    /**
+     * Creates a new ItemStack of this item with an amount, counted and stamped like {@link #createItem()}.
+     * A tracked item is one instance, so its stacks hold one item while instance tracking is enabled.
+     *
+     * @param amount The amount of the stack.
+     * @return A copy of the template.
+     * @throws ItemManagerException If the item is tracked and the amount is more than one.
+     */
+    public ItemStack createItem(int amount) {
+        InstanceTracker tracker = ItemManager.getInstanceTracker();
+        if (tracker != null && isTracked() && amount > 1) throw new ItemManagerException("Tracked item " + getKey() + " cannot be created " + amount + " at a time, every item needs its own instance UUID");
+
+        ItemStack stack = itemStack.clone();
+        stack.setAmount(amount);
+        if (tracker != null && isTracked()) tracker.stamp(stack, this, InstanceTracker.Kind.CREATED, "created by " + ItemManager.getPlugin().getName());
+        ItemManager.getItemStatistics().created(this, stack.getAmount());
+        return stack;
+    }
+
+    /**
+     * Whether every instance of this item gets a unique id so duplicates can be found. Meant for single,
+     * high value items, stamped instances no longer stack with each other. While tracking is enabled they are
+     * created and crafted one at a time, shift click crafting is cancelled.
+     */
+    public boolean isTracked() {
+        return false;
+    }
+
+    /**
+     * Retrieves the compact numeric id assigned by the ItemManager, or -1 if the item is not registered.
+     */
+    public int getId() {
+        return id;
+    }
+
+    void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Retrieves the key of this item as {@code namespace:ItemName}, the namespace is the plugin that registered it.
+     */
+    public String getKey() {
+        return ItemManager.getNamespacedKey().getNamespace() + ":" + getClass().getSimpleName();
+    }
+
+    /*
+        Data migrations, the migration at index n upgrades items from version n to n + 1.
+        Outdated copies in the world are upgraded in place when the ItemManager comes across them.
+     */
+    public List<ItemMigration> getMigrations() {
+        return List.of();
+    }
+
+    public int getVersion() {
+        return migrationChain.size();
+    }
+
+    List<ItemMigration> getMigrationChain() {
+        return migrationChain;
+    }
+
+    public MergePolicy getMergePolicy() {
+        return MergePolicy.vanilla();
+    }
+
+    /*
+        Custom durability, return a maximum above 0 to track durability in persistent data instead of vanilla.
+        The rendered line is kept as the last lore line, return null to leave the lore untouched.
+     */
+    public int getMaxCustomDurability() {
+        return 0;
+    }
+
+    public @Nullable Component renderDurability(int durability, int maxDurability) {
+        return Component.text("Durability: " + durability + " / " + maxDurability, NamedTextColor.GRAY)
+                .decoration(TextDecoration.ITALIC, false);
+    }
+
+    /*
+        Persistent data layout, declare the fields once and read or write them as one record
+     */
+    public @Nullable PersistentSchema getSchema() {
+        return null;
+    }
+
+    public PersistentRecord readRecord(ItemStack stack) {
+        PersistentSchema schema = getSchema();
+        if (schema == null) throw new ItemManagerException(getClass().getSimpleName() + " does not declare a schema!");
+        return schema.read(stack);
+    }
+
+    /*
+        Instance state, kept per item outside its NBT by the InstanceStateStore
+     */
+    public <T> @Nullable T getState(ItemStack stack, StateKey<T> key) {
+        return requireStateStore().get(stack, key);
+    }
+
+    public <T> void setState(ItemStack stack, StateKey<T> key, @Nullable T value) {
+        requireStateStore().set(stack, key, value);
+    }
+
+    private InstanceStateStore requireStateStore() {
+        InstanceStateStore store = ItemManager.getInstanceStateStore();
+        if (store == null) throw new ItemManagerException("Instance states are not enabled, call ItemManager.useInstanceStates() first!");
+        return store;
+    }
+
+    /*
+        Enchanting table offers, cached by the ItemManager per bookshelf power and enchantment seed
+     */
+    public @Nullable EnchantOfferProvider getEnchantOfferProvider() {
+        return null;
+    }
+
+    /*
+        Cooldowns, stored by the CooldownManager so they can be checked from any hook
+     */
+    public void setCooldown(Player player, int ticks) {
+        ItemManager.getCooldownManager().setCooldown(player, this, ticks);
+    }
+
+    public int getRemainingCooldown(Player player) {
+        return ItemManager.getCooldownManager().getRemainingCooldown(player, this);
+    }
+
+    public boolean isOnCooldown(Player player) {
+        return ItemManager.getCooldownManager().isOnCooldown(player, this);
+    }
+
+    /**
+     * Whether cooldowns of this item are shown on the client through the material cooldown.
+     * Note that vanilla applies a material cooldown to every item of that material.
+     */
+    public boolean displaysClientCooldown() {
+        return false;
+    }
+
     /*
         Overridable methods for implementation of CustomItem
      */
@@ -69,6 +238,13 @@ public abstract class CustomItem {
     public void onPlayerStopUsingItem(PlayerStopUsingItemEvent event){}
     public void onPlayerItemFrameChangeEvent(PlayerItemFrameChangeEvent event){}
 
+    /*
+        Passive effects, ticked by the PassiveEffectEngine while the item is held or worn.
+        Return an interval above 0 to enable, items with the same interval are ticked as one batch.
+     */
+    public int getPassiveTickInterval(){ return 0; }
+    public void onPassiveTick(Player player, ItemStack item, EquipmentSlot slot){}
+
 
 
 
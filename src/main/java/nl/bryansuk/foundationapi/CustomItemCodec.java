@@ -0,0 +1,364 @@
+package nl.bryansuk.foundationapi;
+
+import nl.bryansuk.foundationapi.exceptions.ItemManagerException;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary format for ItemStacks that stores CustomItems as a difference from their template.
+ * <p>
+ * A stream starts with a header holding the namespace. CustomItems are written by an id that is local to the
+ * stream: the first time a stream refers to an item, a key record maps the next local id to the key of the
+ * item and the hash of its definition, see {@link RegistryManifest}. A reader maps the keys to the items
+ * registered on its own server, so a stream stays readable when items are added or the compact ids differ.
+ * Stacks are rebuilt from the template of the reading server, so a stack of an item that is no longer
+ * registered, or whose definition differs from the one it was written with, fails to read instead of
+ * turning into a different item.
+ * Every stack is then one of:
+ * <ul>
+ *     <li>a CustomItem equal to its template, written as id and amount;</li>
+ *     <li>a CustomItem that only differs in persistent data and damage, written as id, amount, the persistent
+ *     data and the damage. Custom durability is rendered again when reading;</li>
+ *     <li>anything else, written as {@link ItemStack#serializeAsBytes()}.</li>
+ * </ul>
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public final class CustomItemCodec {
+
+    private static final int MAGIC = 0x43494346;
+    private static final int FORMAT = 3;
+
+    private static final int EMPTY = 0;
+    private static final int FULL = 1;
+    private static final int TEMPLATE = 2;
+    private static final int DELTA = 3;
+    private static final int KEY = 4;
+
+    private CustomItemCodec() {
+    }
+
+    /**
+     * Encodes a batch of ItemStacks.
+     *
+     * @param stacks The stacks, null and air are kept as empty slots.
+     * @return The encoded bytes.
+     */
+    public static byte[] encode(List<ItemStack> stacks){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + stacks.size() * 8);
+        try (Writer writer = new Writer(bytes)) {
+            for (ItemStack stack : stacks) {
+                writer.write(stack);
+            }
+        } catch (IOException e) {
+            throw new ItemManagerException("Could not encode items", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a batch of ItemStacks.
+     *
+     * @param bytes The encoded bytes.
+     * @return The stacks, empty slots are null.
+     */
+    public static List<ItemStack> decode(byte[] bytes){
+        List<ItemStack> stacks = new ArrayList<>();
+        try (Reader reader = new Reader(new ByteArrayInputStream(bytes))) {
+            while (reader.hasNext()) {
+                stacks.add(reader.read());
+            }
+        } catch (IOException e) {
+            throw new ItemManagerException("Could not decode items", e);
+        }
+        return stacks;
+    }
+
+    /**
+     * Looks up the definition hash of a registered item in the manifest of the registry, which is only built
+     * again when items are registered.
+     */
+    private static String definitionHash(CustomItem item) {
+        RegistryManifest.Entry entry = ItemManager.getRegistryManifest().getEntry(item.getKey());
+        return entry != null ? entry.hash() : RegistryManifest.definitionHash(item);
+    }
+
+    /**
+     * Rebuilds a CustomItem from its template, its persistent data and its damage.
+     */
+    private static ItemStack rebuild(CustomItem item, int amount, byte[] data, int damage) {
+        ItemStack stack = item.getCustomItem().clone();
+        stack.setAmount(amount);
+
+        ItemMeta meta = stack.getItemMeta();
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        container.readFromBytes(data, true);
+        if (damage > 0 && meta instanceof Damageable damageable) damageable.setDamage(damage);
+
+        int max = item.getMaxCustomDurability();
+        NamespacedKey durabilityKey = ItemManager.getCustomDurability().getDurabilityKey();
+        Integer durability = max > 0 ? container.get(durabilityKey, PersistentDataType.INTEGER) : null;
+        // The template shows full durability, start from there so the lore line and bar are rendered again
+        if (durability != null) container.set(durabilityKey, PersistentDataType.INTEGER, max);
+        stack.setItemMeta(meta);
+
+        if (durability != null) ItemManager.getCustomDurability().setDurability(stack, durability);
+        return stack;
+    }
+
+    /**
+     * Writes ItemStacks to a stream one at a time, the header is written when the writer is created.
+     */
+    public static final class Writer implements Closeable, Flushable {
+
+        private final DataOutputStream out;
+        // Indexed by compact id, the first write of an item fills its slot
+        private Template[] templates = new Template[16];
+        private int nextLocalId;
+
+        public Writer(OutputStream out) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(out));
+            this.out.writeInt(MAGIC);
+            this.out.writeByte(FORMAT);
+            this.out.writeUTF(ItemManager.getNamespacedKey().getNamespace());
+        }
+
+        /**
+         * Writes one ItemStack.
+         *
+         * @param stack The stack, null and air are written as an empty slot.
+         * @throws IOException When the stream cannot be written.
+         */
+        public void write(@Nullable ItemStack stack) throws IOException {
+            if (stack == null || stack.getType().isAir() || stack.getAmount() <= 0) {
+                out.writeByte(EMPTY);
+                return;
+            }
+
+            // Read from the meta directly, writing a stack must not offer it to the migrator
+            ItemMeta meta = stack.hasItemMeta() ? stack.getItemMeta() : null;
+            CustomItem item = ItemManager.getCustomItem(meta);
+            if (item != null && stack.getType() == item.getCustomItem().getType()) {
+                Template template = template(item);
+                byte[] data = meta.getPersistentDataContainer().serializeToBytes();
+                int damage = meta instanceof Damageable damageable ? damageable.getDamage() : 0;
+
+                if (normalize(item, stack, meta, template).equals(template.meta)) {
+                    boolean equal = damage == template.damage && Arrays.equals(data, template.data);
+                    writeLocalId(template);
+                    out.writeByte(equal ? TEMPLATE : DELTA);
+                    writeVarInt(template.localId);
+                    writeVarInt(stack.getAmount());
+                    if (equal) return;
+
+                    writeVarInt(data.length);
+                    out.write(data);
+                    writeVarInt(damage);
+                    return;
+                }
+            }
+
+            byte[] full = stack.serializeAsBytes();
+            out.writeByte(FULL);
+            writeVarInt(full.length);
+            out.write(full);
+        }
+
+        /**
+         * Turns the meta of a stack into the meta its template would have, without building a stack: the
+         * persistent data, damage and custom durability are put back to those of the template. When the
+         * result equals the template, a delta of persistent data and damage restores the stack.
+         */
+        private static ItemMeta normalize(CustomItem item, ItemStack stack, ItemMeta meta, Template template) {
+            ItemManager.getCustomDurability().restore(item, stack, meta);
+
+            PersistentDataContainer container = meta.getPersistentDataContainer();
+            container.readFromBytes(template.data, true);
+            if (meta instanceof Damageable damageable) damageable.setDamage(template.damage);
+            return meta;
+        }
+
+        private Template template(CustomItem item) {
+            int id = item.getId();
+            if (id >= templates.length) templates = Arrays.copyOf(templates, Math.max(id + 1, templates.length * 2));
+
+            Template template = templates[id];
+            if (template == null) {
+                ItemMeta meta = item.getCustomItem().getItemMeta();
+                int damage = meta instanceof Damageable damageable ? damageable.getDamage() : 0;
+                template = new Template(item.getKey(), definitionHash(item), meta, meta.getPersistentDataContainer().serializeToBytes(), damage);
+                templates[id] = template;
+            }
+            return template;
+        }
+
+        private void writeLocalId(Template template) throws IOException {
+            if (template.localId >= 0) return;
+
+            template.localId = nextLocalId++;
+            out.writeByte(KEY);
+            out.writeUTF(template.key);
+            out.writeUTF(template.hash);
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.writeByte(value);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads ItemStacks from a stream one at a time, the header is checked when the reader is created.
+     */
+    public static final class Reader implements Closeable {
+
+        private final DataInputStream in;
+        // Indexed by local id, a key that is not registered here is only a problem once a stack refers to it
+        private final List<String> keys = new ArrayList<>();
+        private final List<CustomItem> items = new ArrayList<>();
+        private final List<Boolean> sameDefinition = new ArrayList<>();
+        private int next = -2;
+
+        public Reader(InputStream in) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(in));
+            if (this.in.readInt() != MAGIC) throw new IOException("Not an encoded item stream");
+
+            int format = this.in.readUnsignedByte();
+            if (format != FORMAT) throw new IOException("Unsupported item stream format " + format);
+
+            String namespace = this.in.readUTF();
+            if (!namespace.equals(ItemManager.getNamespacedKey().getNamespace())) {
+                throw new IOException("Items were encoded by " + namespace + ", not by " + ItemManager.getNamespacedKey().getNamespace());
+            }
+        }
+
+        /**
+         * Checks whether another stack follows.
+         *
+         * @return True if {@link #read()} returns another stack.
+         * @throws IOException When the stream cannot be read.
+         */
+        public boolean hasNext() throws IOException {
+            if (next == -2) next = in.read();
+            while (next == KEY) {
+                String key = in.readUTF();
+                String hash = in.readUTF();
+                CustomItem item = ItemManager.getCustomItemByKey(key);
+                keys.add(key);
+                items.add(item);
+                sameDefinition.add(item != null && hash.equals(definitionHash(item)));
+                next = in.read();
+            }
+            return next != -1;
+        }
+
+        /**
+         * Reads one ItemStack.
+         *
+         * @return The stack, or null for an empty slot.
+         * @throws IOException When the stream cannot be read or ends early.
+         */
+        public @Nullable ItemStack read() throws IOException {
+            if (!hasNext()) throw new EOFException();
+            int type = next;
+            next = -2;
+
+            switch (type) {
+                case EMPTY -> {
+                    return null;
+                }
+                case FULL -> {
+                    return ItemStack.deserializeBytes(readBytes());
+                }
+                case TEMPLATE -> {
+                    ItemStack stack = item(readVarInt()).getCustomItem().clone();
+                    stack.setAmount(readVarInt());
+                    return stack;
+                }
+                case DELTA -> {
+                    CustomItem item = item(readVarInt());
+                    int amount = readVarInt();
+                    byte[] data = readBytes();
+                    return rebuild(item, amount, data, readVarInt());
+                }
+                default -> throw new IOException("Unknown item record " + type);
+            }
+        }
+
+        private CustomItem item(int localId) throws IOException {
+            if (localId < 0 || localId >= items.size()) throw new IOException("Item record refers to unknown id " + localId);
+
+            CustomItem item = items.get(localId);
+            if (item == null) throw new IOException("No CustomItem is registered as " + keys.get(localId));
+            if (!sameDefinition.get(localId)) {
+                throw new IOException(keys.get(localId) + " was encoded with another definition than the one registered here");
+            }
+            return item;
+        }
+
+        private byte[] readBytes() throws IOException {
+            byte[] bytes = new byte[readVarInt()];
+            in.readFully(bytes);
+            return bytes;
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Malformed variable length number");
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * What a writer knows about a CustomItem: its key, definition hash and template, and the local id it was
+     * given in the stream, -1 until the first stack of the item is written.
+     */
+    private static final class Template {
+        private final String key;
+        private final String hash;
+        private final ItemMeta meta;
+        private final byte[] data;
+        private final int damage;
+        private int localId = -1;
+
+        private Template(String key, String hash, ItemMeta meta, byte[] data, int damage) {
+            this.key = key;
+            this.hash = hash;
+            this.meta = meta;
+            this.data = data;
+            this.damage = damage;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package nl.bryansuk.foundationapi;
+
+import com.destroystokyo.paper.event.entity.EntityAddToWorldEvent;
+import com.destroystokyo.paper.event.entity.EntityRemoveFromWorldEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.ItemDespawnEvent;
+import org.bukkit.event.entity.ItemMergeEvent;
+import org.bukkit.event.entity.ItemSpawnEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+import java.util.*;
+
+/**
+ * Chunk keyed index of the dropped item entities that carry a CustomItem.
+ * <p>
+ * The index is kept up to date from item and entity events, so queries never have to scan the entities
+ * of a world. Dropped items can drift into another chunk without an event, entries are moved to their
+ * current chunk when a query touches them and by a periodic pass over the index itself.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class DroppedItemIndex implements Listener, Runnable {
+
+    private final Map<UUID, Entry> entries = new HashMap<>();
+    private final Map<UUID, WorldIndex> worlds = new HashMap<>();
+
+    DroppedItemIndex() {
+    }
+
+    /*
+            Queries
+     */
+
+    /**
+     * Retrieves all indexed custom item entities within a radius of a location.
+     *
+     * @param center The center of the search.
+     * @param radius The radius in blocks.
+     * @return The item entities within the radius.
+     */
+    public List<Item> getNearbyItems(Location center, double radius){
+        return getNearbyItems(center, radius, null);
+    }
+
+    /**
+     * Retrieves the indexed entities of one CustomItem within a radius of a location.
+     *
+     * @param center The center of the search.
+     * @param radius The radius in blocks.
+     * @param item The CustomItem to filter on, or null for all custom items.
+     * @return The item entities within the radius.
+     */
+    public List<Item> getNearbyItems(Location center, double radius, CustomItem item){
+        List<Item> result = new ArrayList<>();
+        if (center == null || center.getWorld() == null) return result;
+
+        WorldIndex index = worlds.get(center.getWorld().getUID());
+        if (index == null) return result;
+
+        double radiusSquared = radius * radius;
+        int minX = ((int) Math.floor(center.getX() - radius)) >> 4;
+        int maxX = ((int) Math.floor(center.getX() + radius)) >> 4;
+        int minZ = ((int) Math.floor(center.getZ() - radius)) >> 4;
+        int maxZ = ((int) Math.floor(center.getZ() + radius)) >> 4;
+
+        List<Entry> moved = new ArrayList<>();
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                List<Entry> chunk = index.chunks.get(chunkKey(x, z));
+                if (chunk == null) continue;
+
+                for (Entry entry : chunk) {
+                    if (item != null && entry.itemId != item.getId()) continue;
+                    if (!entry.entity.isValid()) continue;
+
+                    Location location = entry.entity.getLocation();
+                    if (entry.chunkKey != chunkKey(location)) moved.add(entry);
+                    if (location.distanceSquared(center) <= radiusSquared) result.add(entry.entity);
+                }
+            }
+        }
+
+        for (Entry entry : moved) {
+            relocate(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves all indexed entities of a CustomItem in a world.
+     *
+     * @param world The world.
+     * @param item The CustomItem.
+     * @return The item entities.
+     */
+    public List<Item> getItems(World world, CustomItem item){
+        List<Item> result = new ArrayList<>();
+        WorldIndex index = world == null ? null : worlds.get(world.getUID());
+        if (index == null) return result;
+
+        Set<Entry> entries = index.byItem.get(item.getId());
+        if (entries == null) return result;
+
+        for (Entry entry : entries) {
+            result.add(entry.entity);
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves all indexed custom item entities in a chunk.
+     *
+     * @param chunk The chunk.
+     * @return The item entities.
+     */
+    public List<Item> getItems(Chunk chunk){
+        List<Item> result = new ArrayList<>();
+        WorldIndex index = chunk == null ? null : worlds.get(chunk.getWorld().getUID());
+        if (index == null) return result;
+
+        List<Entry> entries = index.chunks.get(chunkKey(chunk.getX(), chunk.getZ()));
+        if (entries == null) return result;
+
+        for (Entry entry : entries) {
+            result.add(entry.entity);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the dropped entities of a CustomItem in a world.
+     *
+     * @param world The world.
+     * @param item The CustomItem.
+     * @return The amount of item entities.
+     */
+    public int countEntities(World world, CustomItem item){
+        WorldIndex index = world == null ? null : worlds.get(world.getUID());
+        if (index == null) return 0;
+
+        Set<Entry> entries = index.byItem.get(item.getId());
+        return entries == null ? 0 : entries.size();
+    }
+
+    /**
+     * Counts the dropped items of a CustomItem in a world, adding up the stack amounts.
+     *
+     * @param world The world.
+     * @param item The CustomItem.
+     * @return The total amount of items.
+     */
+    public int countItems(World world, CustomItem item){
+        WorldIndex index = world == null ? null : worlds.get(world.getUID());
+        if (index == null) return 0;
+
+        Set<Entry> entries = index.byItem.get(item.getId());
+        if (entries == null) return 0;
+
+        int amount = 0;
+        for (Entry entry : entries) {
+            amount += entry.entity.getItemStack().getAmount();
+        }
+        return amount;
+    }
+
+    /**
+     * Retrieves the amount of indexed custom item entities across all worlds.
+     *
+     * @return The size of the index.
+     */
+    public int size(){
+        return entries.size();
+    }
+
+    /*
+            Maintenance
+     */
+
+    /**
+     * Indexes the item entities that were already loaded before the index existed.
+     */
+    void seed() {
+        for (World world : Bukkit.getWorlds()) {
+            for (Item entity : world.getEntitiesByClass(Item.class)) {
+                track(entity);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        List<Entry> stale = new ArrayList<>();
+        List<Entry> moved = new ArrayList<>();
+
+        for (Entry entry : entries.values()) {
+            if (!entry.entity.isValid()) {
+                stale.add(entry);
+            } else if (entry.chunkKey != chunkKey(entry.entity.getLocation())) {
+                moved.add(entry);
+            }
+        }
+
+        for (Entry entry : stale) {
+            untrack(entry.entity);
+        }
+        for (Entry entry : moved) {
+            relocate(entry);
+        }
+    }
+
+    private void track(Item entity) {
+        Entry existing = entries.get(entity.getUniqueId());
+        if (existing != null) {
+            if (existing.entity == entity) return;
+            // Changing dimension adds the new entity before the old one is removed, both with the same UUID
+            untrack(existing.entity);
+        }
+
+        CustomItem item = ItemManager.getCustomItem(entity.getItemStack());
+        if (item == null) return;
+
+        Entry entry = new Entry(entity, item.getId(), chunkKey(entity.getLocation()));
+        entries.put(entity.getUniqueId(), entry);
+
+        WorldIndex index = worlds.computeIfAbsent(entity.getWorld().getUID(), uuid -> new WorldIndex());
+        index.chunks.computeIfAbsent(entry.chunkKey, key -> new ArrayList<>()).add(entry);
+        index.byItem.computeIfAbsent(entry.itemId, key -> new HashSet<>()).add(entry);
+    }
+
+    private void untrack(Entity entity) {
+        Entry entry = entries.get(entity.getUniqueId());
+        // The entry may already belong to the entity that replaced this one in another dimension
+        if (entry == null || entry.entity != entity) return;
+        entries.remove(entity.getUniqueId());
+
+        WorldIndex index = worlds.get(entry.world);
+        if (index == null) return;
+
+        removeFromChunk(index, entry);
+        Set<Entry> byItem = index.byItem.get(entry.itemId);
+        if (byItem != null) {
+            byItem.remove(entry);
+            if (byItem.isEmpty()) index.byItem.remove(entry.itemId);
+        }
+    }
+
+    private void relocate(Entry entry) {
+        WorldIndex index = worlds.get(entry.world);
+        if (index == null) return;
+
+        removeFromChunk(index, entry);
+        entry.chunkKey = chunkKey(entry.entity.getLocation());
+        index.chunks.computeIfAbsent(entry.chunkKey, key -> new ArrayList<>()).add(entry);
+    }
+
+    private void removeFromChunk(WorldIndex index, Entry entry) {
+        List<Entry> chunk = index.chunks.get(entry.chunkKey);
+        if (chunk == null) return;
+
+        chunk.remove(entry);
+        if (chunk.isEmpty()) index.chunks.remove(entry.chunkKey);
+    }
+
+    private static long chunkKey(Location location) {
+        return chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+
+    private static long chunkKey(int x, int z) {
+        return (long) x & 0xffffffffL | ((long) z & 0xffffffffL) << 32;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onItemSpawn(ItemSpawnEvent event) {
+        track(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onItemDespawn(ItemDespawnEvent event) {
+        untrack(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onItemMerge(ItemMergeEvent event) {
+        untrack(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onEntityPickupItem(EntityPickupItemEvent event) {
+        if (event.getRemaining() == 0) untrack(event.getItem());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onEntityAddToWorld(EntityAddToWorldEvent event) {
+        // Covers items that change world, the new entity keeps the UUID of the old one
+        if (event.getEntity() instanceof Item entity) track(entity);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onEntityRemoveFromWorld(EntityRemoveFromWorldEvent event) {
+        // Covers removals without a dedicated event, like hoppers, lava and plugins
+        if (event.getEntity() instanceof Item entity) untrack(entity);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onEntitiesLoad(EntitiesLoadEvent event) {
+        for (Entity entity : event.getEntities()) {
+            if (entity instanceof Item item) track(item);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onEntitiesUnload(EntitiesUnloadEvent event) {
+        for (Entity entity : event.getEntities()) {
+            if (entity instanceof Item item) untrack(item);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onWorldUnload(WorldUnloadEvent event) {
+        WorldIndex index = worlds.remove(event.getWorld().getUID());
+        if (index == null) return;
+
+        for (Set<Entry> byItem : index.byItem.values()) {
+            for (Entry entry : byItem) {
+                entries.remove(entry.entity.getUniqueId());
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final Item entity;
+        private final int itemId;
+        private final UUID world;
+        private long chunkKey;
+
+        private Entry(Item entity, int itemId, long chunkKey) {
+            this.entity = entity;
+            this.itemId = itemId;
+            this.world = entity.getWorld().getUID();
+            this.chunkKey = chunkKey;
+        }
+    }
+
+    private static final class WorldIndex {
+        private final Map<Long, List<Entry>> chunks = new HashMap<>();
+        private final Map<Integer, Set<Entry>> byItem = new HashMap<>();
+    }
+}
@@ -0,0 +1,196 @@
+package nl.bryansuk.foundationapi;
+
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.enchantments.EnchantmentOffer;
+import org.bukkit.event.enchantment.EnchantItemEvent;
+import org.bukkit.event.enchantment.PrepareItemEnchantEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of enchanting table offers computed by {@link EnchantOfferProvider}s.
+ * <p>
+ * Offers are keyed by custom item id, bookshelf power and enchantment seed packed into one long, and
+ * stored in an open addressing table. A cache hit copies the cached offers into the offers of the event,
+ * so it does not allocate unless vanilla left a button without an offer.
+ * <p>
+ * The key of the offers shown to a player is kept until the player enchants, the enchant event has no
+ * bookshelf power. The chosen offer is then looked up by that key and replaces the enchantments vanilla
+ * would add.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class EnchantOfferCache {
+
+    private static final int MIN_CAPACITY = 64;
+    private static final int MAX_CAPACITY = 1 << 14;
+    private static final int OFFERS = 3;
+
+    private long[] keys = new long[MIN_CAPACITY];
+    private EnchantmentOffer[][] values = new EnchantmentOffer[MIN_CAPACITY][];
+    private int size;
+    private final Map<UUID, Long> shown = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    EnchantOfferCache() {
+    }
+
+    /**
+     * Clears all cached offers, for example after items were reloaded.
+     */
+    public void invalidate(){
+        keys = new long[MIN_CAPACITY];
+        values = new EnchantmentOffer[MIN_CAPACITY][];
+        size = 0;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Applies the offers of a CustomItem to the event, computing them on a cache miss.
+     */
+    void apply(CustomItem item, EnchantOfferProvider provider, PrepareItemEnchantEvent event) {
+        int power = event.getEnchantmentBonus();
+        int seed = event.getEnchanter().getEnchantmentSeed();
+        long key = key(item.getId(), power, seed);
+        EnchantmentOffer[] offers = offers(key, provider, power, seed);
+        shown.put(event.getEnchanter().getUniqueId(), key);
+
+        EnchantmentOffer[] target = event.getOffers();
+        for (int i = 0; i < target.length; i++) {
+            EnchantmentOffer offer = i < offers.length ? offers[i] : null;
+            if (offer == null) {
+                target[i] = null;
+            } else if (target[i] == null) {
+                target[i] = new EnchantmentOffer(offer.getEnchantment(), offer.getEnchantmentLevel(), offer.getCost());
+            } else {
+                target[i].setEnchantment(offer.getEnchantment());
+                target[i].setEnchantmentLevel(offer.getEnchantmentLevel());
+                target[i].setCost(offer.getCost());
+            }
+        }
+    }
+
+    /**
+     * Replaces the enchantments of the event with the offer of the chosen button, as shown by
+     * {@link #apply(CustomItem, EnchantOfferProvider, PrepareItemEnchantEvent)}. Cancels the event when the
+     * player was not shown the offers of this item with the current seed, or the button has no offer.
+     */
+    void applyChosen(CustomItem item, EnchantOfferProvider provider, EnchantItemEvent event) {
+        Long shownKey = shown.remove(event.getEnchanter().getUniqueId());
+        int seed = event.getEnchanter().getEnchantmentSeed();
+        if (shownKey == null || shownKey != key(item.getId(), power(shownKey), seed)) {
+            event.setCancelled(true);
+            return;
+        }
+
+        EnchantmentOffer[] offers = offers(shownKey, provider, power(shownKey), seed);
+        int button = event.whichButton();
+        EnchantmentOffer offer = button >= 0 && button < offers.length ? offers[button] : null;
+        if (offer == null) {
+            event.setCancelled(true);
+            return;
+        }
+
+        Map<Enchantment, Integer> enchants = event.getEnchantsToAdd();
+        enchants.clear();
+        enchants.put(offer.getEnchantment(), offer.getEnchantmentLevel());
+        event.setExpLevelCost(offer.getCost());
+    }
+
+    private EnchantmentOffer[] offers(long key, EnchantOfferProvider provider, int power, int seed) {
+        EnchantmentOffer[] offers = get(key);
+        if (offers == null) {
+            misses.increment();
+            offers = new EnchantmentOffer[OFFERS];
+            provider.computeOffers(power, seed, offers);
+            put(key, offers);
+        } else {
+            hits.increment();
+        }
+        return offers;
+    }
+
+    private EnchantmentOffer[] get(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != 0) {
+            if (keys[index] == key) return values[index];
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    private void put(long key, EnchantmentOffer[] offers) {
+        if ((size + 1) * 2 > keys.length) {
+            if (keys.length >= MAX_CAPACITY) {
+                // Seeds change after every enchant, old entries are rarely needed again
+                invalidate();
+            } else {
+                grow();
+            }
+        }
+
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                values[index] = offers;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = offers;
+        size++;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        EnchantmentOffer[][] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new EnchantmentOffer[oldKeys.length * 2][];
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+
+            int index = hash(oldKeys[i]) & mask;
+            while (keys[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+    }
+
+    private static long key(int id, int power, int seed) {
+        // Id is offset by one so a key is never 0, which marks an empty slot
+        return (long) (id + 1) << 40 | (long) (power & 0xff) << 32 | (seed & 0xffffffffL);
+    }
+
+    private static int power(long key) {
+        return (int) (key >>> 32 & 0xff);
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
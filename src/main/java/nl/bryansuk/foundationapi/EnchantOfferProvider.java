@@ -0,0 +1,22 @@
+package nl.bryansuk.foundationapi;
+
+import org.bukkit.enchantments.EnchantmentOffer;
+
+/**
+ * Computes the enchanting table offers of a CustomItem.
+ * <p>
+ * Offers are cached per item, bookshelf power and enchantment seed, so the result must only depend on
+ * those inputs. Cached offers are reused until the ItemManager invalidates its caches.
+ */
+@FunctionalInterface
+public interface EnchantOfferProvider {
+
+    /**
+     * Fills the offers of the three enchanting table buttons.
+     *
+     * @param bookshelfPower The bookshelf power of the enchanting table.
+     * @param seed The enchantment seed of the player.
+     * @param offers The offers to fill, slots left null show no offer.
+     */
+    void computeOffers(int bookshelfPower, int seed, EnchantmentOffer[] offers);
+}
@@ -0,0 +1,130 @@
+package nl.bryansuk.foundationapi;
+
+import jdk.jfr.*;
+
+import javax.annotation.Nullable;
+
+/**
+ * Java Flight Recorder events of the ItemManager, one per handler invocation and one per built item.
+ * <p>
+ * The events are disabled by default, enable them in the settings of a recording, for example with
+ * {@code <event name="nl.bryansuk.foundationapi.ItemDispatch"><setting name="enabled">true</setting></event>}
+ * in a {@code .jfc} file. Whether an event type is enabled is cached and refreshed when a recording starts
+ * or stops, so a disabled event costs one volatile read and no allocation.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public final class FlightEvents {
+
+    private static volatile boolean dispatchEnabled;
+    private static volatile boolean buildEnabled;
+    private static Dispatch current;
+
+    static {
+        try {
+            FlightRecorder.addListener(new FlightRecorderListener() {
+                @Override
+                public void recordingStateChanged(Recording recording) {
+                    refresh();
+                }
+            });
+            refresh();
+        } catch (RuntimeException | Error e) {
+            // Flight Recorder is not part of every runtime, events simply stay disabled
+        }
+    }
+
+    private FlightEvents() {
+    }
+
+    private static void refresh() {
+        dispatchEnabled = EventType.getEventType(Dispatch.class).isEnabled();
+        buildEnabled = EventType.getEventType(Build.class).isEnabled();
+    }
+
+    /*
+            Dispatch
+     */
+
+    static @Nullable Dispatch beginDispatch(String eventType) {
+        if (!dispatchEnabled) return null;
+
+        Dispatch event = new Dispatch();
+        event.eventType = eventType;
+        event.outer = current;
+        current = event;
+        event.begin();
+        return event;
+    }
+
+    static void endDispatch(Dispatch event) {
+        event.end();
+        current = event.outer;
+        if (event.shouldCommit()) event.commit();
+    }
+
+    /**
+     * Notes the CustomItem a handler resolved, the first item of a handler is the one that is recorded.
+     */
+    static void resolved(CustomItem item) {
+        if (!dispatchEnabled) return;
+
+        Dispatch event = current;
+        if (event != null && event.itemClass == null) event.itemClass = item.getClass().getName();
+    }
+
+    /*
+            Build
+     */
+
+    static @Nullable Build beginBuild() {
+        if (!buildEnabled) return null;
+
+        Build event = new Build();
+        event.begin();
+        return event;
+    }
+
+    static void endBuild(@Nullable Build event, String source, String item) {
+        if (event == null) return;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.item = item;
+            event.commit();
+        }
+    }
+
+    @Name("nl.bryansuk.foundationapi.ItemDispatch")
+    @Label("Item Dispatch")
+    @Description("One invocation of an ItemManager event handler")
+    @Category({"ItemManager"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Dispatch extends Event {
+
+        @Label("Event Type")
+        String eventType;
+
+        @Label("Item Class")
+        @Description("The CustomItem the handler resolved, empty for vanilla items")
+        String itemClass;
+
+        transient Dispatch outer;
+    }
+
+    @Name("nl.bryansuk.foundationapi.ItemBuild")
+    @Label("Item Build")
+    @Description("Building an ItemStack with the ItemStackCreator or constructing a CustomItem")
+    @Category({"ItemManager"})
+    @Enabled(false)
+    @StackTrace(false)
+    static final class Build extends Event {
+
+        @Label("Source")
+        String source;
+
+        @Label("Item")
+        String item;
+    }
+}
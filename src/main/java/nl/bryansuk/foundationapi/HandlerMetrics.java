@@ -0,0 +1,126 @@
+package nl.bryansuk.foundationapi;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.EventExecutor;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invocation count and latency histogram of one event handler.
+ * <p>
+ * Latencies are counted in buckets of powers of two nanoseconds, recording is one {@link System#nanoTime()}
+ * pair and two adder increments. Percentiles are interpolated within their bucket.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public class HandlerMetrics implements HandlerMetricsMXBean {
+
+    private static final int BUCKETS = 40;
+
+    private final String eventType;
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    HandlerMetrics(Class<? extends Event> eventClass) {
+        this.eventType = eventClass.getSimpleName();
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Wraps the executor of a handler so every call is measured, and recorded by Flight Recorder when enabled.
+     */
+    EventExecutor wrap(EventExecutor executor) {
+        return (Listener listener, Event event) -> {
+            FlightEvents.Dispatch flight = FlightEvents.beginDispatch(eventType);
+            long start = System.nanoTime();
+            try {
+                executor.execute(listener, event);
+            } finally {
+                record(System.nanoTime() - start);
+                if (flight != null) FlightEvents.endDispatch(flight);
+            }
+        };
+    }
+
+    void record(long nanos) {
+        int bucket = Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(Math.max(1, nanos)));
+        buckets[bucket].increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        total.reset();
+        max.reset();
+    }
+
+    @Override
+    public String getEventType() {
+        return eventType;
+    }
+
+    @Override
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long count = getCount();
+        return count == 0 ? 0 : total.sum() / (double) count / 1000;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return percentile(0.5);
+    }
+
+    @Override
+    public double getP90Micros() {
+        return percentile(0.9);
+    }
+
+    @Override
+    public double getP99Micros() {
+        return percentile(0.99);
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return max.get() / 1000.0;
+    }
+
+    private double percentile(double fraction) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        if (count == 0) return 0;
+
+        double rank = fraction * count;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] == 0) continue;
+            if (seen + counts[i] >= rank) {
+                double low = 1L << i;
+                return (low + low * (rank - seen) / counts[i]) / 1000;
+            }
+            seen += counts[i];
+        }
+        return getMaxMicros();
+    }
+}
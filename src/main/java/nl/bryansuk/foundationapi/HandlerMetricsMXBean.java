@@ -0,0 +1,23 @@
+package nl.bryansuk.foundationapi;
+
+/**
+ * JMX view of one event handler of the ItemManager, published as
+ * {@code nl.bryansuk.foundationapi:type=Handler,plugin=<plugin>,event=<event>}.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public interface HandlerMetricsMXBean {
+
+    String getEventType();
+
+    long getCount();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getMaxMicros();
+}
@@ -0,0 +1,201 @@
+package nl.bryansuk.foundationapi;
+
+import nl.bryansuk.foundationapi.exceptions.ItemManagerException;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.ShapedRecipe;
+import org.bukkit.inventory.ShapelessRecipe;
+
+import java.util.*;
+
+/**
+ * Index of the recipes that use {@link CustomIngredient}s.
+ * <p>
+ * Maps every recipe to the custom ingredients it needs, and every custom item id to the recipes that use
+ * it. Vanilla already matched the materials. For a shaped recipe every custom ingredient is bound to its
+ * positions in the shape, matching places the shape in the grid at every offset, mirrored or not, and checks
+ * the id in every slot of a custom ingredient. For a shapeless recipe the slots that carry the right id are
+ * counted.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class IngredientIndex {
+
+    private final Map<NamespacedKey, List<Binding>> recipes = new HashMap<>();
+    private final Map<NamespacedKey, Shape> shapes = new HashMap<>();
+    private final Map<Integer, Set<NamespacedKey>> recipesById = new HashMap<>();
+
+    IngredientIndex() {
+    }
+
+    /**
+     * Sets a custom ingredient in a shaped recipe, the shape has to be set first.
+     *
+     * @param recipe The shaped recipe.
+     * @param key The character of the ingredient in the shape.
+     * @param ingredient The custom ingredient.
+     * @return The recipe.
+     */
+    public ShapedRecipe setIngredient(ShapedRecipe recipe, char key, CustomIngredient ingredient){
+        boolean found = false;
+        for (String row : recipe.getShape()) {
+            if (row.indexOf(key) >= 0) found = true;
+        }
+        if (!found) throw new ItemManagerException("Symbol '" + key + "' does not appear in the shape of " + recipe.getKey());
+        checkRegistered(ingredient);
+
+        recipe.setIngredient(key, ingredient.choice());
+        shapes.computeIfAbsent(recipe.getKey(), k -> Shape.of(recipe.getShape())).ingredients.put(key, ingredient);
+        recipesById.computeIfAbsent(ingredient.getItem().getId(), k -> new HashSet<>()).add(recipe.getKey());
+        return recipe;
+    }
+
+    /**
+     * Adds a custom ingredient to a shapeless recipe.
+     *
+     * @param recipe The shapeless recipe.
+     * @param ingredient The custom ingredient.
+     * @return The recipe.
+     */
+    public ShapelessRecipe addIngredient(ShapelessRecipe recipe, CustomIngredient ingredient){
+        recipe.addIngredient(ingredient.choice());
+        bind(recipe.getKey(), ingredient, 1);
+        return recipe;
+    }
+
+    /**
+     * Retrieves the keys of the recipes that use a CustomItem as ingredient.
+     *
+     * @param item The CustomItem.
+     * @return The recipe keys.
+     */
+    public Set<NamespacedKey> getRecipes(CustomItem item){
+        Set<NamespacedKey> keys = recipesById.get(item.getId());
+        return keys == null ? Set.of() : Collections.unmodifiableSet(keys);
+    }
+
+    public boolean isBound(NamespacedKey recipe){
+        return recipes.containsKey(recipe) || shapes.containsKey(recipe);
+    }
+
+    boolean matches(NamespacedKey recipe, CraftingCache.GridKey grid, ItemStack[] matrix) {
+        Shape shape = shapes.get(recipe);
+        if (shape != null) return shape.matches(grid, matrix);
+
+        List<Binding> bindings = recipes.get(recipe);
+        if (bindings == null) return true;
+
+        for (Binding binding : bindings) {
+            int id = binding.ingredient.getItem().getId();
+            int found = 0;
+
+            for (int slot = 0; slot < grid.size(); slot++) {
+                if (grid.customId(slot) != id) continue;
+                if (binding.ingredient.hasPredicates() && !binding.ingredient.testPredicates(matrix[slot])) continue;
+                found++;
+            }
+            if (found < binding.count) return false;
+        }
+        return true;
+    }
+
+    private static void checkRegistered(CustomIngredient ingredient) {
+        if (ingredient.getItem().getId() < 0) throw new ItemManagerException(ingredient.getItem().getClass().getSimpleName() + " is not registered!");
+    }
+
+    private void bind(NamespacedKey recipe, CustomIngredient ingredient, int count) {
+        checkRegistered(ingredient);
+        int id = ingredient.getItem().getId();
+
+        List<Binding> bindings = recipes.computeIfAbsent(recipe, key -> new ArrayList<>());
+        for (int i = 0; i < bindings.size(); i++) {
+            Binding binding = bindings.get(i);
+            if (binding.ingredient == ingredient) {
+                bindings.set(i, new Binding(ingredient, binding.count + count));
+                return;
+            }
+        }
+        bindings.add(new Binding(ingredient, count));
+        recipesById.computeIfAbsent(id, key -> new HashSet<>()).add(recipe);
+    }
+
+    private record Binding(CustomIngredient ingredient, int count) {
+    }
+
+    /**
+     * The shape of a shaped recipe without its empty outer rows and columns, like vanilla places it, with the
+     * custom ingredients of its symbols.
+     */
+    private static final class Shape {
+        private final String[] rows;
+        private final int width;
+        private final Map<Character, CustomIngredient> ingredients = new HashMap<>();
+
+        private Shape(String[] rows) {
+            this.rows = rows;
+            this.width = rows.length == 0 ? 0 : rows[0].length();
+        }
+
+        private static Shape of(String[] shape) {
+            int top = shape.length;
+            int bottom = -1;
+            int left = Integer.MAX_VALUE;
+            int right = -1;
+            for (int row = 0; row < shape.length; row++) {
+                for (int column = 0; column < shape[row].length(); column++) {
+                    if (shape[row].charAt(column) == ' ') continue;
+                    top = Math.min(top, row);
+                    bottom = Math.max(bottom, row);
+                    left = Math.min(left, column);
+                    right = Math.max(right, column);
+                }
+            }
+
+            String[] rows = new String[Math.max(0, bottom - top + 1)];
+            for (int row = 0; row < rows.length; row++) {
+                rows[row] = shape[top + row].substring(left, right + 1);
+            }
+            return new Shape(rows);
+        }
+
+        private boolean matches(CraftingCache.GridKey grid, ItemStack[] matrix) {
+            int size = (int) Math.sqrt(matrix.length);
+            if (size * size != matrix.length || grid.size() != matrix.length) return false;
+
+            for (int top = 0; top + rows.length <= size; top++) {
+                for (int left = 0; left + width <= size; left++) {
+                    if (matchesAt(grid, matrix, size, top, left, false)) return true;
+                    if (matchesAt(grid, matrix, size, top, left, true)) return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Checks a placement of the shape, empty symbols have to be empty slots, so only the placement vanilla
+         * matched can pass, and every custom symbol needs its own item in its slot.
+         */
+        private boolean matchesAt(CraftingCache.GridKey grid, ItemStack[] matrix, int size, int top, int left, boolean mirrored) {
+            for (int slot = 0; slot < matrix.length; slot++) {
+                int row = slot / size - top;
+                int column = slot % size - left;
+                boolean inShape = row >= 0 && row < rows.length && column >= 0 && column < width;
+                char symbol = inShape ? rows[row].charAt(mirrored ? width - 1 - column : column) : ' ';
+
+                ItemStack stack = matrix[slot];
+                boolean empty = stack == null || stack.getType().isAir();
+                if (symbol == ' ') {
+                    if (!empty) return false;
+                    continue;
+                }
+                if (empty) return false;
+
+                CustomIngredient ingredient = ingredients.get(symbol);
+                if (ingredient == null) continue;
+                if (grid.customId(slot) != ingredient.getItem().getId()) return false;
+                if (ingredient.hasPredicates() && !ingredient.testPredicates(stack)) return false;
+            }
+            return true;
+        }
+    }
+}
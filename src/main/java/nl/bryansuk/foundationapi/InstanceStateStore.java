@@ -0,0 +1,360 @@
+package nl.bryansuk.foundationapi;
+
+import nl.bryansuk.foundationapi.exceptions.ItemManagerException;
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Keeps frequently changing state of items outside their NBT.
+ * <p>
+ * An item only carries its instance UUID, see {@link ItemManager#getInstanceId(ItemStack)}, its state lives
+ * in this store. Changing the state does not touch the ItemStack, so no meta is written and no slot update is
+ * sent to the client. States are cached in memory, changed states are written behind in batches to an append
+ * only log in the data folder. The log is indexed at startup and compacted when most of it is outdated.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class InstanceStateStore implements Runnable {
+
+    private static final int HEADER = 20;
+    private static final int TOMBSTONE = -1;
+
+    private final JavaPlugin plugin;
+    private final Path logFile;
+    private final Map<UUID, Long> offsets = new ConcurrentHashMap<>();
+    private final Map<UUID, byte[]> inFlight = new ConcurrentHashMap<>();
+    private final Map<UUID, State> evicted = new HashMap<>();
+    private final LinkedHashMap<UUID, State> cache;
+    private FileChannel channel;
+    private int maxCached = 8192;
+    private long garbage;
+
+    InstanceStateStore(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.logFile = plugin.getDataFolder().toPath().resolve("instance-states.log");
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, State> eldest) {
+                if (size() <= maxCached) return false;
+                // Changed states stay readable until the next flush wrote them
+                if (eldest.getValue().dirty) evicted.put(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+
+        try {
+            Files.createDirectories(logFile.getParent());
+            open();
+        } catch (IOException e) {
+            throw new ItemManagerException("Could not open instance state log " + logFile, e);
+        }
+    }
+
+    /**
+     * Sets how many states are kept in memory.
+     *
+     * @param maxCached The maximum amount of cached states.
+     */
+    public void setMaxCached(int maxCached){
+        this.maxCached = Math.max(16, maxCached);
+    }
+
+    public int getStoredCount() {
+        return offsets.size();
+    }
+
+    /**
+     * Retrieves a value of the state of an ItemStack.
+     *
+     * @param stack The ItemStack.
+     * @param key The key of the value.
+     * @param <T> The type of the value.
+     * @return The value, or null if it was never set.
+     */
+    public <T> @Nullable T get(ItemStack stack, StateKey<T> key){
+        UUID id = ItemManager.getInstanceId(stack);
+        if (id == null) return null;
+
+        State state = load(id);
+        byte[] bytes = state == null ? null : state.values.get(key.name());
+        return bytes == null ? null : key.decode(bytes);
+    }
+
+    /**
+     * Sets a value of the state of an ItemStack. Only the first value of a stack writes to its meta, to give
+     * it its UUID.
+     *
+     * @param stack The ItemStack.
+     * @param key The key of the value.
+     * @param value The value, or null to remove it.
+     * @param <T> The type of the value.
+     */
+    public <T> void set(ItemStack stack, StateKey<T> key, @Nullable T value){
+        UUID id = ItemManager.getInstanceId(stack);
+        if (id == null) {
+            if (value == null) return;
+            id = ItemManager.assignInstanceId(stack);
+        }
+
+        State state = load(id);
+        if (state == null) {
+            state = new State(new HashMap<>());
+            cache.put(id, state);
+        }
+        if (value == null) {
+            state.values.remove(key.name());
+        } else {
+            state.values.put(key.name(), key.encode(value));
+        }
+        state.dirty = true;
+    }
+
+    /**
+     * Deletes the whole state of an instance, for example when the item is destroyed.
+     *
+     * @param id The instance UUID.
+     */
+    public void delete(UUID id){
+        State state = new State(Map.of());
+        state.dirty = true;
+        state.deleted = true;
+        cache.put(id, state);
+    }
+
+    private @Nullable State load(UUID id) {
+        State state = cache.get(id);
+        if (state != null) return state.deleted ? null : state;
+
+        state = evicted.remove(id);
+        if (state == null) {
+            byte[] pending = inFlight.get(id);
+            if (pending != null) {
+                state = pending.length == 0 ? null : new State(decodeState(pending));
+            } else {
+                state = read(id);
+            }
+        }
+        if (state != null) cache.put(id, state);
+        return state;
+    }
+
+    /*
+            Write behind
+     */
+
+    @Override
+    public void run() {
+        Map<UUID, byte[]> batch = collectDirty();
+        if (!batch.isEmpty()) Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> write(batch));
+    }
+
+    /**
+     * Writes every changed state and closes the log, called when the plugin is disabled. Batches that were
+     * handed to an async write that did not run yet are written here as well, the async write finds the log
+     * closed afterwards.
+     */
+    public void close(){
+        collectDirty();
+        try {
+            synchronized (this) {
+                // Holds the newest bytes of every state that is not in the log yet, taken after any running write
+                write(new LinkedHashMap<>(inFlight));
+                channel.close();
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not close instance state log", e);
+        }
+    }
+
+    private Map<UUID, byte[]> collectDirty() {
+        Map<UUID, byte[]> batch = new LinkedHashMap<>();
+        for (Map.Entry<UUID, State> entry : evicted.entrySet()) {
+            batch.put(entry.getKey(), entry.getValue().deleted ? new byte[0] : encodeState(entry.getValue().values));
+        }
+        evicted.clear();
+
+        for (Map.Entry<UUID, State> entry : cache.entrySet()) {
+            State state = entry.getValue();
+            if (!state.dirty) continue;
+            state.dirty = false;
+            batch.put(entry.getKey(), state.deleted ? new byte[0] : encodeState(state.values));
+        }
+        inFlight.putAll(batch);
+        return batch;
+    }
+
+    private synchronized void write(Map<UUID, byte[]> batch) {
+        if (batch.isEmpty() || !channel.isOpen()) return;
+
+        int size = 0;
+        for (byte[] bytes : batch.values()) {
+            size += HEADER + bytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        Map<UUID, Long> written = new HashMap<>();
+
+        try {
+            long position = channel.size();
+            for (Map.Entry<UUID, byte[]> entry : batch.entrySet()) {
+                written.put(entry.getKey(), position + buffer.position());
+                putRecord(buffer, entry.getKey(), entry.getValue());
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not write " + batch.size() + " instance states", e);
+            return;
+        }
+
+        for (Map.Entry<UUID, byte[]> entry : batch.entrySet()) {
+            UUID id = entry.getKey();
+            Long previous = entry.getValue().length == 0 ? offsets.remove(id) : offsets.put(id, written.get(id));
+            if (previous != null) garbage++;
+            // A newer change may already be on its way, only drop the bytes that were written here
+            inFlight.remove(id, entry.getValue());
+        }
+    }
+
+    private static void putRecord(ByteBuffer buffer, UUID id, byte[] state) {
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+        buffer.putInt(state.length == 0 ? TOMBSTONE : state.length);
+        buffer.put(state);
+    }
+
+    /*
+            Log file
+     */
+
+    private @Nullable State read(UUID id) {
+        Long offset = offsets.get(id);
+        if (offset == null) return null;
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            channel.read(header, offset);
+            byte[] bytes = new byte[header.getInt(16)];
+            channel.read(ByteBuffer.wrap(bytes), offset + HEADER);
+            return new State(decodeState(bytes));
+        } catch (IOException e) {
+            throw new ItemManagerException("Could not read instance state " + id, e);
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long position = 0;
+        long size = channel.size();
+        long live = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (position + HEADER <= size) {
+            header.clear();
+            channel.read(header, position);
+            UUID id = new UUID(header.getLong(0), header.getLong(8));
+            int length = header.getInt(16);
+            if (length < TOMBSTONE || position + HEADER + Math.max(0, length) > size) break;
+
+            Long previous = length == TOMBSTONE ? offsets.remove(id) : offsets.put(id, position);
+            if (previous != null) garbage++;
+            position += HEADER + Math.max(0, length);
+        }
+
+        // A crash during a write leaves a partial record at the end
+        if (position < size) {
+            plugin.getLogger().warning("Dropped " + (size - position) + " bytes of an incomplete instance state record");
+            channel.truncate(position);
+        }
+        if (garbage > offsets.size()) compact();
+    }
+
+    /**
+     * Rewrites the log with only the latest state of every instance.
+     */
+    private void compact() throws IOException {
+        Path temp = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+        Map<UUID, Long> compacted = new HashMap<>();
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = 0;
+            for (Map.Entry<UUID, Long> entry : offsets.entrySet()) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER);
+                channel.read(header, entry.getValue());
+                int length = header.getInt(16);
+                ByteBuffer record = ByteBuffer.allocate(HEADER + length);
+                channel.read(record, entry.getValue());
+                record.flip();
+                compacted.put(entry.getKey(), position);
+                while (record.hasRemaining()) {
+                    position += out.write(record, position);
+                }
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        Files.move(temp, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        offsets.clear();
+        offsets.putAll(compacted);
+        garbage = 0;
+    }
+
+    private static byte[] encodeState(Map<String, byte[]> values) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(values.size());
+            for (Map.Entry<String, byte[]> entry : values.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                out.write(entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Even an empty state is at least four bytes, a zero length record is reserved for deletions
+        return bytes.toByteArray();
+    }
+
+    private static Map<String, byte[]> decodeState(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int count = in.readInt();
+            Map<String, byte[]> values = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                values.put(name, value);
+            }
+            return values;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class State {
+        private final Map<String, byte[]> values;
+        private boolean dirty;
+        private boolean deleted;
+
+        private State(Map<String, byte[]> values) {
+            this.values = values;
+        }
+    }
+}
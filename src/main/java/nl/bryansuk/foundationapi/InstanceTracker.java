@@ -0,0 +1,390 @@
+package nl.bryansuk.foundationapi;
+
+import nl.bryansuk.foundationapi.exceptions.ItemManagerException;
+import org.bukkit.Bukkit;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Detects duplicated instances of tracked CustomItems.
+ * <p>
+ * Tracked items get a unique instance UUID when they are created or crafted. The ItemManager reports a
+ * sighting whenever such an item passes through an event it already handles, the main thread only queues
+ * it. An asynchronous worker then follows every instance: an instance that is created twice, that leaves a
+ * dropped item other than the one it was dropped as, or that shows up again after it was destroyed, is
+ * reported as a {@link Duplicate}.
+ * <p>
+ * Destroyed instances are kept in a file in the data folder, the worker checks a Bloom filter first so the
+ * file is only searched for instances that might be in it. The file is sorted when the tracker starts and
+ * whenever enough records were appended, so a search is a binary search plus a scan of a short tail.
+ * Holders that have not been seen for a while are forgotten, a dropped item once it would have despawned
+ * and a held item after an hour, so the memory of the worker stays bounded.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class InstanceTracker implements Runnable {
+
+    private static final int FILTER_BITS = 1 << 23;
+    private static final int FILTER_HASHES = 5;
+    private static final int RECORD = 16;
+    private static final int MAX_TAIL_RECORDS = 4096;
+    private static final int DROPPED_LIFETIME_TICKS = 6000 + 1200;
+    private static final int HELD_LIFETIME_TICKS = 72_000;
+    private static final int EXPIRY_INTERVAL_TICKS = 1200;
+
+    private final JavaPlugin plugin;
+    private final Path destroyedFile;
+    private final Queue<Sighting> sightings = new ConcurrentLinkedQueue<>();
+    private final Map<UUID, Sighting> holders = new HashMap<>();
+    private final long[] filter = new long[FILTER_BITS / 64];
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD);
+    private FileChannel channel;
+    // Records before this index are sorted, the records after it were appended since the last sort
+    private long sortedRecords;
+    private int lastExpiry;
+    private volatile Consumer<Duplicate> duplicateHandler;
+    private long duplicates;
+
+    InstanceTracker(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.destroyedFile = plugin.getDataFolder().toPath().resolve("destroyed-instances.dat");
+        this.duplicateHandler = duplicate -> plugin.getLogger().warning("Possible duplicate of " + duplicate.item()
+                + " " + duplicate.id() + ": " + duplicate.reason() + " (" + duplicate.previous().where()
+                + " -> " + duplicate.current().where() + ")");
+
+        try {
+            Files.createDirectories(destroyedFile.getParent());
+            channel = open();
+            // A torn record at the end is dropped, it was never reported as destroyed
+            channel.truncate(channel.size() / RECORD * RECORD);
+            sort();
+            forEachDestroyed(this::addToFilter);
+        } catch (IOException e) {
+            throw new ItemManagerException("Could not open " + destroyedFile, e);
+        }
+    }
+
+    /**
+     * Sets what happens with suspected duplicates, by default they are logged. The handler runs off the main
+     * thread.
+     *
+     * @param duplicateHandler The handler.
+     */
+    public void setDuplicateHandler(Consumer<Duplicate> duplicateHandler){
+        this.duplicateHandler = Objects.requireNonNull(duplicateHandler);
+    }
+
+    public synchronized long getDuplicateCount() {
+        return duplicates;
+    }
+
+    /**
+     * Gives a tracked ItemStack a new instance UUID.
+     *
+     * @param stack The stack, its meta is replaced.
+     * @param item The CustomItem of the stack.
+     * @param kind How the instance came into being.
+     * @param where Where it came into being, used in reports.
+     * @return The stack.
+     */
+    ItemStack stamp(ItemStack stack, CustomItem item, Kind kind, String where) {
+        UUID id = ItemManager.assignInstanceId(stack);
+        sightings.add(new Sighting(id, item.getKey(), kind, null, where, Bukkit.getCurrentTick()));
+        return stack;
+    }
+
+    /**
+     * Queues a sighting of a tracked item, called on the main thread by the ItemManager.
+     *
+     * @param stack The stack.
+     * @param item The CustomItem of the stack.
+     * @param kind What happened to the item.
+     * @param entity The dropped item involved, if any.
+     * @param where Where it happened, used in reports.
+     */
+    void sight(ItemStack stack, CustomItem item, Kind kind, @Nullable UUID entity, String where) {
+        UUID id = ItemManager.getInstanceId(stack);
+        if (id != null) sightings.add(new Sighting(id, item.getKey(), kind, entity, where, Bukkit.getCurrentTick()));
+    }
+
+    /*
+            Worker
+     */
+
+    @Override
+    public synchronized void run() {
+        Set<UUID> destroyed = new LinkedHashSet<>();
+        List<Duplicate> found = new ArrayList<>();
+
+        Sighting sighting;
+        while ((sighting = sightings.poll()) != null) {
+            UUID id = sighting.id();
+            Sighting previous = holders.get(id);
+
+            if (sighting.kind() == Kind.DESTROYED) {
+                holders.remove(id);
+                if (!destroyed.contains(id) && !isDestroyed(id)) {
+                    addToFilter(id);
+                    destroyed.add(id);
+                }
+                continue;
+            }
+
+            String reason = null;
+            if (destroyed.contains(id) || isDestroyed(id)) {
+                reason = "seen again after it was destroyed";
+            } else if (previous != null) {
+                reason = switch (sighting.kind()) {
+                    case CREATED, CRAFTED -> "created twice";
+                    case DROPPED -> previous.entity() != null && !previous.entity().equals(sighting.entity())
+                            ? "dropped while it still lies on the ground" : null;
+                    case PICKED_UP -> previous.entity() != null && !previous.entity().equals(sighting.entity())
+                            ? "picked up from another dropped item than it was dropped as" : null;
+                    default -> null;
+                };
+            }
+            if (reason != null) found.add(new Duplicate(id, sighting.item(), reason, previous == null ? sighting : previous, sighting));
+
+            // Only a dropped item is a holder that can be told apart, in an inventory the item is just held
+            holders.put(id, sighting.kind() == Kind.DROPPED ? sighting : sighting.withEntity(null));
+        }
+
+        if (!destroyed.isEmpty()) writeDestroyed(destroyed);
+        expireHolders();
+        duplicates += found.size();
+        for (Duplicate duplicate : found) {
+            try {
+                duplicateHandler.accept(duplicate);
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.SEVERE, "Duplicate handler failed for " + duplicate.id(), e);
+            }
+        }
+    }
+
+    /**
+     * Processes the remaining sightings and closes the file, called when the plugin is disabled.
+     */
+    public synchronized void close(){
+        run();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not close " + destroyedFile, e);
+        }
+    }
+
+    private void expireHolders() {
+        int tick = Bukkit.getCurrentTick();
+        if (tick - lastExpiry < EXPIRY_INTERVAL_TICKS) return;
+        lastExpiry = tick;
+
+        // A dropped item that was not seen again has despawned, a held item may still be around but is only
+        // compared with the sightings of the last hour
+        holders.values().removeIf(holder -> tick - holder.tick() > (holder.kind() == Kind.DROPPED ? DROPPED_LIFETIME_TICKS : HELD_LIFETIME_TICKS));
+    }
+
+    private boolean isDestroyed(UUID id) {
+        if (!mightBeDestroyed(id)) return false;
+
+        try {
+            return search(id);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not search " + destroyedFile, e);
+            return false;
+        }
+    }
+
+    private boolean search(UUID id) throws IOException {
+        long low = 0;
+        long high = sortedRecords - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            int compared = readRecord(middle).compareTo(id);
+            if (compared == 0) return true;
+            if (compared < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        long records = channel.size() / RECORD;
+        for (long index = sortedRecords; index < records; index++) {
+            if (readRecord(index).equals(id)) return true;
+        }
+        return false;
+    }
+
+    private UUID readRecord(long index) throws IOException {
+        record.clear();
+        long position = index * RECORD;
+        while (record.hasRemaining()) {
+            if (channel.read(record, position + record.position()) < 0) throw new IOException("Unexpected end of " + destroyedFile);
+        }
+        record.flip();
+        return new UUID(record.getLong(), record.getLong());
+    }
+
+    private void writeDestroyed(Collection<UUID> ids) {
+        ByteBuffer buffer = ByteBuffer.allocate(ids.size() * RECORD);
+        for (UUID id : ids) {
+            buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        }
+        buffer.flip();
+
+        try {
+            long position = channel.size();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            if (channel.size() / RECORD - sortedRecords > MAX_TAIL_RECORDS) sort();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not write " + ids.size() + " destroyed instances to " + destroyedFile, e);
+        }
+    }
+
+    /**
+     * Rewrites the file with its records sorted and without doubles, and moves it over the old file.
+     */
+    private void sort() throws IOException {
+        long records = channel.size() / RECORD;
+        if (records == sortedRecords) return;
+
+        List<UUID> ids = new ArrayList<>((int) records);
+        forEachDestroyed(ids::add);
+        ids.sort(null);
+
+        Path temp = destroyedFile.resolveSibling(destroyedFile.getFileName() + ".tmp");
+        long written = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD * 4096);
+            UUID last = null;
+            for (UUID id : ids) {
+                if (id.equals(last)) continue;
+                last = id;
+
+                if (!buffer.hasRemaining()) written += flush(out, buffer);
+                buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+            }
+            written += flush(out, buffer);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        channel.close();
+        try {
+            Files.move(temp, destroyedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            sortedRecords = written / RECORD;
+        } finally {
+            // The old file stays in use when the move failed, its records are then scanned as the tail
+            channel = open();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static long flush(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += out.write(buffer);
+        }
+        buffer.clear();
+        return written;
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(destroyedFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void forEachDestroyed(Consumer<UUID> consumer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD * 4096);
+        long size = channel.size();
+        long position = 0;
+        while (position < size) {
+            buffer.clear();
+            if (channel.read(buffer, position) <= 0) break;
+            buffer.flip();
+            while (buffer.remaining() >= RECORD) {
+                consumer.accept(new UUID(buffer.getLong(), buffer.getLong()));
+                position += RECORD;
+            }
+        }
+    }
+
+    /*
+            Bloom filter of destroyed instances
+     */
+
+    private void addToFilter(UUID id) {
+        long h1 = mix(id.getMostSignificantBits());
+        long h2 = mix(id.getLeastSignificantBits()) | 1;
+        for (int i = 0; i < FILTER_HASHES; i++) {
+            int bit = (int) ((h1 + i * h2) & (FILTER_BITS - 1));
+            filter[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private boolean mightBeDestroyed(UUID id) {
+        long h1 = mix(id.getMostSignificantBits());
+        long h2 = mix(id.getLeastSignificantBits()) | 1;
+        for (int i = 0; i < FILTER_HASHES; i++) {
+            int bit = (int) ((h1 + i * h2) & (FILTER_BITS - 1));
+            if ((filter[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    public enum Kind {
+        CREATED, CRAFTED, DROPPED, PICKED_UP, MOVED, DESTROYED
+    }
+
+    /**
+     * One time a tracked item passed through an event.
+     *
+     * @param id The instance UUID.
+     * @param item The key of the CustomItem.
+     * @param kind What happened to the item.
+     * @param entity The dropped item involved, if any.
+     * @param where Where it happened.
+     * @param tick The server tick.
+     */
+    public record Sighting(UUID id, String item, Kind kind, @Nullable UUID entity, String where, int tick) {
+
+        private Sighting withEntity(@Nullable UUID entity) {
+            return new Sighting(id, item, kind, entity, where, tick);
+        }
+    }
+
+    /**
+     * A suspected duplicate.
+     *
+     * @param id The instance UUID.
+     * @param item The key of the CustomItem.
+     * @param reason Why the instance is suspected.
+     * @param previous The last sighting before.
+     * @param current The sighting that conflicts with it.
+     */
+    public record Duplicate(UUID id, String item, String reason, Sighting previous, Sighting current) {
+    }
+}
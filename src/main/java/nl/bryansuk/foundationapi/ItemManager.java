@@ -4,45 +4,158 @@ import io.papermc.paper.event.block.CompostItemEvent;
 import io.papermc.paper.event.entity.EntityCompostItemEvent;
 import io.papermc.paper.event.entity.EntityDamageItemEvent;
 import io.papermc.paper.event.player.*;
+import nl.bryansuk.foundationapi.exceptions.ItemManagerException;
 import org.bukkit.Bukkit;
+import org.bukkit.Keyed;
+import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+import org.bukkit.event.*;
 import org.bukkit.event.block.BlockDropItemEvent;
 import org.bukkit.event.enchantment.EnchantItemEvent;
 import org.bukkit.event.enchantment.PrepareItemEnchantEvent;
 import org.bukkit.event.entity.*;
 import org.bukkit.event.inventory.*;
 import org.bukkit.event.player.*;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.inventory.CraftingInventory;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Recipe;
+import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.*;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import javax.annotation.Nullable;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
 
 @SuppressWarnings("unused")
 public class ItemManager implements Listener{
 
     private static Map<String, CustomItem> customItemMap;
+    private static List<CustomItem> customItemIds;
     private static NamespacedKey namespacedKey;
+    private static NamespacedKey instanceKey;
     private static JavaPlugin plugin;
+    private static PassiveEffectEngine passiveEffectEngine;
+    private static DroppedItemIndex droppedItemIndex;
+    private static CooldownManager cooldownManager;
+    private static CustomDurability customDurability;
+    private static CraftingCache craftingCache;
+    private static IngredientIndex ingredientIndex;
+    private static EnchantOfferCache enchantOfferCache;
+    private static ItemMigrator itemMigrator;
+    private static MigrationSweep migrationSweep;
+    private static ItemStatistics itemStatistics;
+
+    private static Map<Class<? extends Event>, List<RegisteredListener>> handlers;
+    // Handlers of an event class and its superclasses, sorted by priority, filled on the first event of a class
+    private static Map<Class<?>, RegisteredListener[]> resolvedHandlers;
+    private static ItemManagerMetrics metrics;
+    private static SharedDispatcher sharedDispatcher;
+    private static BiConsumer<String, BiConsumer<Event, Map<ItemStack, String>>> joinedDispatcher;
+    private static Plugin dispatcherOwner;
+    private static Map<ItemStack, String> routedNames;
+
+    private static RegistryManifest importedManifest;
+    private static Path manifestFile;
+    private static boolean manifestConsistent = true;
+    private static RegistryManifest registryManifest;
+    private static InstanceStateStore instanceStateStore;
+    private static InstanceTracker instanceTracker;
 
     public ItemManager(JavaPlugin plugin) {
+        if (ItemManager.plugin != null && ItemManager.plugin.isEnabled()) {
+            // Same copy of the library, the statics already belong to the first plugin
+            plugin.getLogger().warning("ItemManager already runs for " + ItemManager.plugin.getName()
+                    + " in this class loader, items of " + plugin.getName() + " join its namespace");
+            return;
+        }
+
         customItemMap = new HashMap<>();
+        customItemIds = new ArrayList<>();
         namespacedKey = new NamespacedKey(plugin, "custom_item");
-        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        instanceKey = new NamespacedKey(plugin, "instance_id");
         ItemManager.plugin = plugin;
+        metrics = new ItemManagerMetrics(plugin);
+        handlers = createHandlers();
+        resolvedHandlers = new HashMap<>();
+        metrics.register();
+        attachDispatcher(null);
+        plugin.getServer().getPluginManager().registerEvent(PluginDisableEvent.class, this, EventPriority.MONITOR,
+                (listener, event) -> onPluginDisable((PluginDisableEvent) event), plugin);
+
+        passiveEffectEngine = new PassiveEffectEngine();
+        plugin.getServer().getPluginManager().registerEvents(passiveEffectEngine, plugin);
+        plugin.getServer().getScheduler().runTaskTimer(plugin, passiveEffectEngine, 1L, 1L);
+
+        droppedItemIndex = new DroppedItemIndex();
+        plugin.getServer().getPluginManager().registerEvents(droppedItemIndex, plugin);
+        plugin.getServer().getScheduler().runTaskTimer(plugin, droppedItemIndex, 40L, 40L);
+        // Items are registered after construction, index what is already loaded once they are known
+        plugin.getServer().getScheduler().runTask(plugin, droppedItemIndex::seed);
+
+        customDurability = new CustomDurability(plugin);
+
+        craftingCache = new CraftingCache();
+        ingredientIndex = new IngredientIndex();
+        enchantOfferCache = new EnchantOfferCache();
+
+        itemMigrator = new ItemMigrator(plugin);
+        plugin.getServer().getPluginManager().registerEvents(itemMigrator, plugin);
+        plugin.getServer().getScheduler().runTaskTimer(plugin, itemMigrator, 1L, 1L);
+        migrationSweep = new MigrationSweep(plugin);
+        plugin.getServer().getPluginManager().registerEvents(migrationSweep, plugin);
+        // Starts only when a registered item has migrations
+        plugin.getServer().getScheduler().runTask(plugin, migrationSweep::start);
+
+        itemStatistics = new ItemStatistics(plugin);
+        plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, itemStatistics, 6000L, 6000L);
+
+        cooldownManager = new CooldownManager();
+        plugin.getServer().getScheduler().runTaskTimer(plugin, cooldownManager, 1200L, 1200L);
     }
 
     public void registerCustomItem(CustomItem item){
         if(customItemMap == null) throw new RuntimeException("CustomItemManager has not been initialized yet!");
-        customItemMap.put(item.getClass().getSimpleName(), item);
+        CustomItem previous = customItemMap.put(item.getClass().getSimpleName(), item);
+        if (previous != null) {
+            item.setId(previous.getId());
+            customItemIds.set(item.getId(), item);
+        } else {
+            assignId(item);
+        }
         registerRecipes(item);
+        itemStatistics.register(item);
+        registryManifest = null;
+        invalidateCaches();
+        if (item.getPassiveTickInterval() > 0) passiveEffectEngine.refreshAll();
+    }
+
+    private static void assignId(CustomItem item) {
+        RegistryManifest.Entry entry = importedManifest == null ? null : importedManifest.getEntry(item.getKey());
+        if (entry != null && customItemIds.get(entry.id()) == null) {
+            // Keep the id the rest of the network uses for this item
+            item.setId(entry.id());
+            customItemIds.set(entry.id(), item);
+            return;
+        }
+        item.setId(customItemIds.size());
+        customItemIds.add(item);
     }
 
     private void registerRecipes(CustomItem item) {
@@ -51,20 +164,456 @@ public class ItemManager implements Listener{
         }
     }
 
+    /**
+     * Clears every cache that holds decisions of CustomItems, call this after reloading item definitions.
+     */
+    public static void invalidateCaches() {
+        craftingCache.invalidate();
+        enchantOfferCache.invalidate();
+    }
+
+    /*
+            Shared dispatcher
+     */
+
+    private Map<Class<? extends Event>, List<RegisteredListener>> createHandlers() {
+        Map<Class<? extends Event>, List<RegisteredListener>> handlers = new HashMap<>();
+        for (Method method : ItemManager.class.getDeclaredMethods()) {
+            EventHandler annotation = method.getAnnotation(EventHandler.class);
+            if (annotation == null) continue;
+
+            Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+            EventExecutor executor = metrics.handler(eventClass).wrap(EventExecutor.create(method, eventClass));
+            handlers.computeIfAbsent(eventClass, key -> new ArrayList<>())
+                    .add(new RegisteredListener(this, executor, annotation.priority(), plugin, annotation.ignoreCancelled()));
+        }
+        return handlers;
+    }
+
+    /**
+     * Joins the shared dispatcher of another plugin, or publishes one when there is none.
+     *
+     * @param leaving A plugin that is being disabled and whose dispatcher cannot be joined, or null.
+     */
+    @SuppressWarnings("unchecked")
+    private void attachDispatcher(@Nullable Plugin leaving) {
+        ServicesManager services = plugin.getServer().getServicesManager();
+        for (Class<?> service : services.getKnownServices()) {
+            // Copies of the library in other plugins have their own class with the same name
+            if (!service.getName().equals(SharedDispatcher.class.getName())) continue;
+
+            for (RegisteredServiceProvider<?> registration : services.getRegistrations(service)) {
+                if (registration.getPlugin() == leaving || registration.getPlugin() == plugin) continue;
+
+                joinedDispatcher = (BiConsumer<String, BiConsumer<Event, Map<ItemStack, String>>>) registration.getProvider();
+                joinedDispatcher.accept(namespacedKey.getNamespace(), ItemManager::route);
+                dispatcherOwner = registration.getPlugin();
+                return;
+            }
+        }
+
+        sharedDispatcher = new SharedDispatcher();
+        joinedDispatcher = null;
+        dispatcherOwner = plugin;
+        services.register(SharedDispatcher.class, sharedDispatcher, plugin, ServicePriority.Normal);
+
+        PluginManager pluginManager = plugin.getServer().getPluginManager();
+        for (Map.Entry<Class<? extends Event>, List<RegisteredListener>> entry : handlers.entrySet()) {
+            for (RegisteredListener handler : entry.getValue()) {
+                pluginManager.registerEvent(entry.getKey(), this, handler.getPriority(),
+                        (listener, event) -> sharedDispatcher.dispatch(handler, event), plugin, false);
+            }
+        }
+    }
+
+    private void onPluginDisable(PluginDisableEvent event) {
+        if (event.getPlugin() == plugin) {
+            if (joinedDispatcher != null) joinedDispatcher.accept(namespacedKey.getNamespace(), null);
+            if (instanceStateStore != null) instanceStateStore.close();
+            if (instanceTracker != null) instanceTracker.close();
+            itemStatistics.run();
+            metrics.unregister();
+            return;
+        }
+        // Take over when the plugin that owns the dispatcher goes away
+        if (event.getPlugin() == dispatcherOwner) attachDispatcher(dispatcherOwner);
+    }
+
+    /**
+     * Runs the handlers of this plugin for an event routed by the shared dispatcher of another plugin.
+     */
+    private static void route(Event event, Map<ItemStack, String> names) {
+        Map<ItemStack, String> outer = routedNames;
+        routedNames = names;
+        try {
+            fire(event);
+        } catch (EventException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not pass routed " + event.getEventName() + " to " + plugin.getName(), e);
+        } finally {
+            routedNames = outer;
+        }
+    }
+
+    /**
+     * Runs the handlers of this ItemManager for an event directly, without the plugin manager. Like the
+     * HandlerList of the event, handlers registered for a superclass of the event run as well, the handlers
+     * of EntityCompostItemEvent and CompostItemEvent both see an entity composting. Handlers run in order of
+     * priority.
+     */
+    static void fire(Event event) throws EventException {
+        RegisteredListener[] listeners = resolvedHandlers.computeIfAbsent(event.getClass(), ItemManager::resolveHandlers);
+        for (RegisteredListener listener : listeners) {
+            listener.callEvent(event);
+        }
+    }
+
+    private static RegisteredListener[] resolveHandlers(Class<?> eventClass) {
+        List<RegisteredListener> listeners = new ArrayList<>();
+        for (Class<?> type = eventClass; type != null && Event.class.isAssignableFrom(type); type = type.getSuperclass()) {
+            List<RegisteredListener> declared = handlers.get(type);
+            if (declared != null) listeners.addAll(declared);
+        }
+        // Stable, so handlers of the same priority keep the subclass first
+        listeners.sort(Comparator.comparing(RegisteredListener::getPriority));
+        return listeners.toArray(new RegisteredListener[0]);
+    }
+
+    static Set<Class<? extends Event>> getHandledEvents() {
+        return Collections.unmodifiableSet(handlers.keySet());
+    }
+
+    /**
+     * Checks whether this ItemManager owns the shared dispatcher and receives the item events of the server.
+     *
+     * @return True if this ItemManager owns the dispatcher.
+     */
+    public static boolean isDispatcherOwner() {
+        return sharedDispatcher != null && dispatcherOwner == plugin;
+    }
+
+    /*
+            Registry manifest
+     */
+
+    /**
+     * Shares the ids of this plugin's CustomItems with other servers through a manifest file in a shared
+     * folder. Items known to the manifest keep its ids, new items are added to it. Call this before any
+     * CustomItem is registered.
+     *
+     * @param directory The shared folder.
+     */
+    public static void useManifest(File directory){
+        if (customItemMap == null) throw new ItemManagerException("CustomItemManager has not been initialized yet!");
+        if (!customItemMap.isEmpty()) throw new ItemManagerException("The manifest has to be loaded before items are registered!");
+
+        manifestFile = new File(directory, namespacedKey.getNamespace() + ".manifest").toPath();
+        if (Files.exists(manifestFile)) {
+            try {
+                importedManifest = RegistryManifest.read(manifestFile);
+            } catch (IOException e) {
+                throw new ItemManagerException("Could not read registry manifest " + manifestFile, e);
+            }
+            // Reserve the ids of the manifest, items take their own slot when they register
+            for (int id = 0; id <= importedManifest.getMaxId(); id++) {
+                customItemIds.add(null);
+            }
+        }
+        plugin.getServer().getScheduler().runTask(plugin, ItemManager::verifyManifest);
+    }
+
+    private static void verifyManifest() {
+        syncManifest(false);
+    }
+
+    /**
+     * Replaces the definitions in the shared manifest with the CustomItems registered here. Call this on one
+     * server after changed items were deployed to the whole network, until then servers with another
+     * definition of an item are reported as inconsistent. Ids still have to agree.
+     *
+     * @return True if the manifest was written or already matched.
+     */
+    public static boolean publishManifest() {
+        if (manifestFile == null) throw new ItemManagerException("No manifest is used, see useManifest(File)!");
+        return syncManifest(true);
+    }
+
+    private static boolean syncManifest(boolean publish) {
+        RegistryManifest manifest = getRegistryManifest();
+        Path lockFile = manifestFile.resolveSibling(manifestFile.getFileName() + ".lock");
+
+        try {
+            Files.createDirectories(lockFile.toAbsolutePath().getParent());
+            // Servers of the network start at the same time, only one of them reads, merges and writes at once
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                // Another server may have added items since the manifest was read at startup
+                RegistryManifest shared = Files.exists(manifestFile) ? RegistryManifest.read(manifestFile) : null;
+                if (shared != null) {
+                    // A different definition is not overwritten, the last server to start would silently win
+                    List<String> conflicts = publish ? shared.idConflicts(manifest) : shared.conflicts(manifest);
+                    if (!conflicts.isEmpty()) {
+                        manifestConsistent = false;
+                        plugin.getLogger().severe("Registry differs from " + manifestFile + ", compact ids and encoded items are not safe on this network:");
+                        conflicts.forEach(conflict -> plugin.getLogger().severe("  " + conflict));
+                        return false;
+                    }
+                    // Items of other servers that are not registered here stay in the manifest
+                    manifest = manifest.merge(shared);
+                    if (manifest.getChecksum().equals(shared.getChecksum())) {
+                        importedManifest = shared;
+                        manifestConsistent = true;
+                        return true;
+                    }
+                }
+
+                manifest.write(manifestFile);
+                importedManifest = manifest;
+                manifestConsistent = true;
+                plugin.getLogger().info("Wrote registry manifest " + manifestFile + " (" + manifest.getChecksum() + ")");
+                return true;
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not write registry manifest " + manifestFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * Retrieves the manifest of the CustomItems registered right now.
+     *
+     * @return The manifest.
+     */
+    public static RegistryManifest getRegistryManifest() {
+        if (registryManifest == null) registryManifest = RegistryManifest.of(getCustomItems());
+        return registryManifest;
+    }
+
+    /**
+     * Checks whether the registry agrees with the shared manifest, ids as well as item definitions. Always true
+     * when no manifest is used.
+     *
+     * @return True if compact ids are safe to exchange with other servers.
+     */
+    public static boolean isManifestConsistent() {
+        return manifestConsistent;
+    }
+
+    /*
+            Instances
+     */
+
+    /**
+     * Retrieves the instance UUID of an ItemStack, given to it by the {@link InstanceStateStore} or the
+     * {@link InstanceTracker}.
+     *
+     * @param stack The ItemStack.
+     * @return The UUID, or null if the stack has none.
+     */
+    public static @Nullable UUID getInstanceId(@Nullable ItemStack stack){
+        if (stack == null || !stack.hasItemMeta()) return null;
+
+        String id = stack.getItemMeta().getPersistentDataContainer().get(instanceKey, PersistentDataType.STRING);
+        return id == null ? null : UUID.fromString(id);
+    }
+
+    static UUID assignInstanceId(ItemStack stack) {
+        UUID id = UUID.randomUUID();
+        ItemMeta meta = stack.getItemMeta();
+        meta.getPersistentDataContainer().set(instanceKey, PersistentDataType.STRING, id.toString());
+        stack.setItemMeta(meta);
+        return id;
+    }
+
+    /**
+     * Enables the {@link InstanceStateStore}, which keeps state of single items outside their NBT. Changed
+     * states are written to the data folder every five seconds and when the plugin is disabled.
+     *
+     * @return The store.
+     */
+    public static InstanceStateStore useInstanceStates(){
+        if (customItemMap == null) throw new ItemManagerException("CustomItemManager has not been initialized yet!");
+        if (instanceStateStore == null) {
+            instanceStateStore = new InstanceStateStore(plugin);
+            plugin.getServer().getScheduler().runTaskTimer(plugin, instanceStateStore, 100L, 100L);
+        }
+        return instanceStateStore;
+    }
+
+    public static @Nullable InstanceStateStore getInstanceStateStore() {
+        return instanceStateStore;
+    }
+
+    /**
+     * Enables the {@link InstanceTracker}, which gives every new instance of a tracked CustomItem its own UUID
+     * and reports suspected duplicates. See {@link CustomItem#isTracked()}.
+     *
+     * @return The tracker.
+     */
+    public static InstanceTracker useInstanceTracking(){
+        if (customItemMap == null) throw new ItemManagerException("CustomItemManager has not been initialized yet!");
+        if (instanceTracker == null) {
+            instanceTracker = new InstanceTracker(plugin);
+            plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, instanceTracker, 20L, 20L);
+        }
+        return instanceTracker;
+    }
+
+    public static @Nullable InstanceTracker getInstanceTracker() {
+        return instanceTracker;
+    }
+
+    private static void track(CustomItem item, ItemStack stack, InstanceTracker.Kind kind, @Nullable Entity entity, Location location) {
+        if (instanceTracker == null || !item.isTracked()) return;
+
+        UUID dropped = entity instanceof Item ? entity.getUniqueId() : null;
+        instanceTracker.sight(stack, item, kind, dropped, describe(entity, location));
+    }
+
+    private static String describe(@Nullable Entity entity, Location location) {
+        return (entity == null ? "" : entity.getName() + " at ") + location.getWorld().getName()
+                + " " + location.getBlockX() + " " + location.getBlockY() + " " + location.getBlockZ();
+    }
+
     public static NamespacedKey getNamespacedKey() {
         return namespacedKey;
     }
 
-    private @Nullable String checkPersistentDataMatch(ItemStack item){
-        if (item == null) return null;
-        if (item.getItemMeta() == null) return null;
+    /**
+     * Retrieves the registered CustomItems in the order of their ids.
+     *
+     * @return The registered items.
+     */
+    public static List<CustomItem> getCustomItems() {
+        List<CustomItem> items = new ArrayList<>(customItemMap.size());
+        for (CustomItem item : customItemIds) {
+            if (item != null) items.add(item);
+        }
+        return items;
+    }
 
-        PersistentDataContainer container = item.getItemMeta().getPersistentDataContainer();
+    public static @Nullable CustomItem getCustomItemById(int id) {
+        if (id < 0 || id >= customItemIds.size()) return null;
+        return customItemIds.get(id);
+    }
+
+    /**
+     * Retrieves a registered CustomItem by its key.
+     *
+     * @param key The item as {@code namespace:ItemName}.
+     * @return The CustomItem, or null if no item of this plugin has the key.
+     */
+    public static @Nullable CustomItem getCustomItemByKey(String key) {
+        String prefix = namespacedKey.getNamespace() + ":";
+        if (key == null || !key.startsWith(prefix)) return null;
+        return customItemMap.get(key.substring(prefix.length()));
+    }
+
+    public static PassiveEffectEngine getPassiveEffectEngine() {
+        return passiveEffectEngine;
+    }
+
+    public static DroppedItemIndex getDroppedItemIndex() {
+        return droppedItemIndex;
+    }
+
+    public static CooldownManager getCooldownManager() {
+        return cooldownManager;
+    }
+
+    public static CustomDurability getCustomDurability() {
+        return customDurability;
+    }
+
+    public static ItemMigrator getItemMigrator() {
+        return itemMigrator;
+    }
+
+    public static MigrationSweep getMigrationSweep() {
+        return migrationSweep;
+    }
+
+    public static ItemManagerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public static ItemStatistics getItemStatistics() {
+        return itemStatistics;
+    }
+
+    public static CraftingCache getCraftingCache() {
+        return craftingCache;
+    }
+
+    public static IngredientIndex getIngredientIndex() {
+        return ingredientIndex;
+    }
+
+    public static EnchantOfferCache getEnchantOfferCache() {
+        return enchantOfferCache;
+    }
+
+    private static @Nullable String checkPersistentDataMatch(ItemMeta meta){
+        PersistentDataContainer container = meta.getPersistentDataContainer();
         return container.get(namespacedKey, PersistentDataType.STRING);
     }
 
-    private @Nullable CustomItem getCustomItem(ItemStack item) {
-        String name = checkPersistentDataMatch(item);
+    static @Nullable CustomItem getCustomItem(ItemStack item) {
+        return getCustomItem(item, null, false);
+    }
+
+    /**
+     * Resolves the CustomItem of a stack and hands an outdated item to the {@link ItemMigrator}. A stack its
+     * holder keeps is upgraded in place, a copy is left alone and the inventory it came from is scanned.
+     *
+     * @param item The stack.
+     * @param holder The inventory the stack is held in, if any.
+     * @param inPlace Whether the stack is the one its holder keeps, so changes to it persist.
+     */
+    private static @Nullable CustomItem getCustomItem(ItemStack item, @Nullable Inventory holder, boolean inPlace) {
+        // Vanilla items without meta can never carry our tag, skip the meta clone
+        if (item == null || !item.hasItemMeta()) {
+            metrics.metaCloneAvoided();
+            return null;
+        }
+
+        if (routedNames != null) {
+            // The dispatcher already read the name of this stack
+            String name = routedNames.get(item);
+            CustomItem routed = name == null ? null : customItemMap.get(name);
+            if (routed != null && routed.getVersion() == 0) {
+                metrics.metaCloneAvoided();
+                metrics.resolved(true);
+                FlightEvents.resolved(routed);
+                return routed;
+            }
+        }
+
+        ItemMeta meta = item.getItemMeta();
+        CustomItem customItem = getCustomItem(meta);
+        metrics.resolved(customItem != null);
+        if (customItem == null) {
+            if (sharedDispatcher != null) sharedDispatcher.collect(item, meta);
+            return null;
+        }
+        FlightEvents.resolved(customItem);
+        if (customItem.getVersion() > 0) {
+            if (inPlace) {
+                itemMigrator.offer(item, customItem, meta);
+            } else if (holder != null) {
+                itemMigrator.offerCopy(customItem, meta, holder);
+            }
+        }
+        return customItem;
+    }
+
+    private static @Nullable Inventory inventoryOf(Entity entity) {
+        return entity instanceof InventoryHolder holder ? holder.getInventory() : null;
+    }
+
+    static @Nullable CustomItem getCustomItem(ItemMeta meta) {
+        if (meta == null) return null;
+
+        String name = checkPersistentDataMatch(meta);
         if (name == null) return null;
 
         return customItemMap.get(name);
@@ -76,52 +625,149 @@ public class ItemManager implements Listener{
 
     @EventHandler
     private void onInteract(PlayerInteractEvent event) {
-        CustomItem item = getCustomItem(event.getItem());
+        // The item of an interact event mirrors the stack in the hand
+        CustomItem item = getCustomItem(event.getItem(), null, true);
         if (item != null) item.onInteract(event);
     }
 
     @EventHandler
     private void onConsumption(PlayerItemConsumeEvent event) {
-        CustomItem item = getCustomItem(event.getItem());
-        if (item != null) item.onConsumption(event);
+        CustomItem item = getCustomItem(event.getItem(), event.getPlayer().getInventory(), false);
+        if (item == null) return;
+
+        item.onConsumption(event);
+        if (!event.isCancelled()) itemStatistics.destroyed(item, 1);
     }
 
     @EventHandler
     private void onItemMerge(ItemMergeEvent event) {
         CustomItem item = getCustomItem(event.getEntity().getItemStack());
-        if (item != null) item.onItemMerge(event);
+        if (item == null) return;
+
+        item.onItemMerge(event);
+        if (event.isCancelled()) return;
+
+        // Vanilla already found both stacks equal, only the policy is left to check
+        ItemStack source = event.getEntity().getItemStack();
+        ItemStack target = event.getTarget().getItemStack();
+        if (!item.getMergePolicy().allowsMerge(source.getAmount() + target.getAmount(), target.getMaxStackSize())) {
+            event.setCancelled(true);
+        }
     }
 
     @EventHandler
     private void onItemSpawn(ItemSpawnEvent event) {
         CustomItem item = getCustomItem(event.getEntity().getItemStack());
-        if (item != null) item.onItemSpawn(event);
+        if (item == null) return;
+
+        item.onItemSpawn(event);
+        if (event.isCancelled()) return;
+        if (mergeById(item, event.getEntity())) {
+            event.setCancelled(true);
+            return;
+        }
+        track(item, event.getEntity().getItemStack(), InstanceTracker.Kind.DROPPED, event.getEntity(), event.getLocation());
+    }
+
+    private boolean mergeById(CustomItem item, Item spawned) {
+        MergePolicy policy = item.getMergePolicy();
+        if (policy.getMode() != MergePolicy.Mode.BY_ID) return false;
+
+        ItemStack stack = spawned.getItemStack();
+        for (Item target : droppedItemIndex.getNearbyItems(spawned.getLocation(), policy.getRadius(), item)) {
+            ItemStack targetStack = target.getItemStack();
+            int combined = stack.getAmount() + targetStack.getAmount();
+
+            if (!policy.allowsMerge(combined, targetStack.getMaxStackSize())) continue;
+            if (!policy.matches(stack, targetStack)) continue;
+
+            targetStack.setAmount(combined);
+            target.setItemStack(targetStack);
+            return true;
+        }
+        return false;
     }
 
     @EventHandler
     private void onItemDespawn(ItemDespawnEvent event) {
         CustomItem item = getCustomItem(event.getEntity().getItemStack());
-        if (item != null) item.onItemDespawn(event);
+        if (item == null) return;
+
+        item.onItemDespawn(event);
+        if (!event.isCancelled()) {
+            itemStatistics.destroyed(item, event.getEntity().getItemStack().getAmount());
+            track(item, event.getEntity().getItemStack(), InstanceTracker.Kind.DESTROYED, event.getEntity(), event.getLocation());
+        }
     }
 
     @EventHandler
     private void onItemCraft(CraftItemEvent event) {
         CustomItem item = getCustomItem(event.getInventory().getResult());
-        if (item != null) item.onItemCraft(event);
+        if (item == null) return;
+
+        item.onItemCraft(event);
+        // A shift click or a result of several items crafts several instances from one result, they cannot
+        // share an instance UUID, so a tracked item is only crafted one at a time
+        if (instanceTracker != null && item.isTracked() && (event.isShiftClick() || event.getInventory().getResult().getAmount() > 1)) {
+            event.setCancelled(true);
+        }
+        if (!event.isCancelled()) itemStatistics.created(item, craftedAmount(event));
+        if (instanceTracker != null && item.isTracked() && !event.isCancelled()) {
+            ItemStack result = event.getInventory().getResult().clone();
+            String where = describe(event.getWhoClicked(), event.getWhoClicked().getLocation());
+            event.getInventory().setResult(instanceTracker.stamp(result, item, InstanceTracker.Kind.CRAFTED, where));
+        }
+    }
+
+    /**
+     * Works out how many items a craft makes. A shift click crafts as often as the smallest ingredient stack
+     * and the free space of the player allow, it fires one event for all of them.
+     */
+    private static int craftedAmount(CraftItemEvent event) {
+        ItemStack result = event.getInventory().getResult();
+        if (!event.isShiftClick()) return result.getAmount();
+
+        int crafts = Integer.MAX_VALUE;
+        for (ItemStack ingredient : event.getInventory().getMatrix()) {
+            if (ingredient != null && !ingredient.getType().isAir()) crafts = Math.min(crafts, ingredient.getAmount());
+        }
+        if (crafts == Integer.MAX_VALUE) return result.getAmount();
+
+        int space = 0;
+        int maxStackSize = result.getMaxStackSize();
+        for (ItemStack stack : event.getWhoClicked().getInventory().getStorageContents()) {
+            if (stack == null || stack.getType().isAir()) {
+                space += maxStackSize;
+            } else if (stack.isSimilar(result)) {
+                space += Math.max(0, maxStackSize - stack.getAmount());
+            }
+        }
+        return Math.min(crafts, space / result.getAmount()) * result.getAmount();
     }
 
     @EventHandler
     private void onItemSmith(SmithItemEvent event) {
         CustomItem item = getCustomItem(event.getInventory().getResult());
-        if (item != null) item.onItemSmith(event);
+        if (item == null) return;
+
+        item.onItemSmith(event);
+        if (!event.isCancelled()) itemStatistics.created(item, 1);
     }
 
     @EventHandler
     private void onBlockDropItem(BlockDropItemEvent event) {
-        List<CustomItem> items = event.getItems()
-                .stream()
-                .map(item -> getCustomItem(item.getItemStack()))
-                .toList();
+        // Resolve every drop before any hook can change the list, without allocating when all drops are vanilla
+        List<Item> drops = event.getItems();
+        List<CustomItem> items = null;
+        for (int i = 0; i < drops.size(); i++) {
+            CustomItem item = getCustomItem(drops.get(i).getItemStack());
+            if (item == null) continue;
+
+            if (items == null) items = new ArrayList<>(2);
+            items.add(item);
+        }
+        if (items == null) return;
+
         for (CustomItem item : items) {
             item.onBlockDropItem(event);
         }
@@ -129,20 +775,24 @@ public class ItemManager implements Listener{
 
     @EventHandler
     private void onPlayerHeldItem(PlayerItemHeldEvent event) {
-        CustomItem item = getCustomItem(event.getPlayer().getActiveItem());
+        CustomItem item = getCustomItem(event.getPlayer().getActiveItem(), event.getPlayer().getInventory(), false);
         if (item != null) item.onPlayerHeldItem(event);
     }
 
     @EventHandler
     private void onPlayerItemMend(PlayerItemMendEvent event) {
-        CustomItem item = getCustomItem(event.getItem());
+        CustomItem item = getCustomItem(event.getItem(), event.getPlayer().getInventory(), false);
         if (item != null) item.onPlayerItemMend(event);
     }
 
     @EventHandler
     private void onEnchantItem(EnchantItemEvent event) {
         CustomItem item = getCustomItem(event.getItem());
-        if (item != null) item.onEnchantItem(event);
+        if (item == null) return;
+
+        EnchantOfferProvider provider = item.getEnchantOfferProvider();
+        if (provider != null) enchantOfferCache.applyChosen(item, provider, event);
+        item.onEnchantItem(event);
     }
 
     @EventHandler
@@ -154,58 +804,122 @@ public class ItemManager implements Listener{
     @EventHandler
     private void onPlayerDropItem(PlayerDropItemEvent event) {
         CustomItem item = getCustomItem(event.getItemDrop().getItemStack());
-        if (item != null) item.onPlayerDropItem(event);
+        if (item == null) return;
+
+        item.onPlayerDropItem(event);
+        if (!event.isCancelled()) {
+            track(item, event.getItemDrop().getItemStack(), InstanceTracker.Kind.DROPPED, event.getItemDrop(), event.getItemDrop().getLocation());
+        }
     }
 
     @EventHandler
     private void onPlayerItemBreak(PlayerItemBreakEvent event) {
         CustomItem item = getCustomItem(event.getBrokenItem());
-        if (item != null) item.onPlayerItemBreak(event);
+        if (item == null) return;
+
+        item.onPlayerItemBreak(event);
+        itemStatistics.destroyed(item, 1);
+        track(item, event.getBrokenItem(), InstanceTracker.Kind.DESTROYED, event.getPlayer(), event.getPlayer().getLocation());
     }
 
     @EventHandler
     private void onEntityPickupItem(EntityPickupItemEvent event) {
-        CustomItem item = getCustomItem(event.getItem().getItemStack());
-        if (item != null) item.onEntityPickupItem(event);
+        CustomItem item = getCustomItem(event.getItem().getItemStack(), inventoryOf(event.getEntity()), false);
+        if (item == null) return;
+
+        item.onEntityPickupItem(event);
+        if (!event.isCancelled()) {
+            track(item, event.getItem().getItemStack(), InstanceTracker.Kind.PICKED_UP, event.getItem(), event.getEntity().getLocation());
+        }
     }
 
     @EventHandler
     private void onPlayerItemDamage(PlayerItemDamageEvent event) {
-        CustomItem item = getCustomItem(event.getItem());
-        if (item != null) item.onPlayerItemDamage(event);
+        CustomItem item = getCustomItem(event.getItem(), event.getPlayer().getInventory(), false);
+        if (item == null) return;
+
+        item.onPlayerItemDamage(event);
+        if (!event.isCancelled()) customDurability.damage(item, event);
     }
 
     @EventHandler
     private void onCompostItem(CompostItemEvent event) {
         CustomItem item = getCustomItem(event.getItem());
-        if (item != null) item.onCompostItem(event);
+        if (item == null) return;
+
+        item.onCompostItem(event);
+        // Entities composting is a cancellable subclass, counted by its own handler
+        if (!(event instanceof EntityCompostItemEvent)) itemStatistics.destroyed(item, 1);
     }
 
     @EventHandler
     private void onPrepareItemCraft(PrepareItemCraftEvent event) {
-        CustomItem item = getCustomItem(event.getInventory().getResult());
-        if (item != null) item.onPrepareItemCraft(event);
+        CraftingInventory inventory = event.getInventory();
+        ItemStack result = inventory.getResult();
+        if (result == null) return;
+
+        NamespacedKey recipeKey = event.getRecipe() instanceof Keyed keyed ? keyed.getKey() : null;
+        boolean bound = recipeKey != null && ingredientIndex.isBound(recipeKey);
+        if (!bound && !result.hasItemMeta()) return;
+
+        ItemStack[] matrix = inventory.getMatrix();
+        CraftingCache.GridKey key = craftingCache.key(event.getView().getPlayer(), matrix);
+
+        // Vanilla only matched the materials of custom ingredients, check their ids
+        if (bound && !ingredientIndex.matches(recipeKey, key, matrix)) {
+            inventory.setResult(null);
+            return;
+        }
+        if (!result.hasItemMeta()) return;
+
+        CraftingCache.Entry cached = craftingCache.get(key);
+        if (cached != null) {
+            if (cached.changed()) inventory.setResult(cached.result());
+            return;
+        }
+
+        CustomItem item = getCustomItem(result);
+        if (item == null) {
+            craftingCache.put(key, null, result, false);
+            return;
+        }
+
+        ItemStack before = result.clone();
+        item.onPrepareItemCraft(event);
+        ItemStack decided = inventory.getResult();
+        craftingCache.put(key, item, decided, !Objects.equals(before, decided));
     }
 
     @EventHandler
     private void onInventoryMoveItem(InventoryMoveItemEvent event) {
-        CustomItem item = getCustomItem(event.getItem());
-        if (item != null) item.onInventoryMoveItem(event);
+        CustomItem item = getCustomItem(event.getItem(), event.getDestination(), false);
+        if (item == null) return;
+
+        item.onInventoryMoveItem(event);
+        Location location = event.getDestination().getLocation();
+        if (!event.isCancelled() && location != null) {
+            track(item, event.getItem(), InstanceTracker.Kind.MOVED, null, location);
+        }
     }
 
     @EventHandler
     private void onPlayerSwapHandItems(PlayerSwapHandItemsEvent event) {
-        CustomItem mainItem = getCustomItem(event.getMainHandItem());
+        CustomItem mainItem = getCustomItem(event.getMainHandItem(), event.getPlayer().getInventory(), false);
         if (mainItem != null) mainItem.onPlayerSwapHandItems(event);
 
-        CustomItem offHandItem = getCustomItem(event.getOffHandItem());
+        CustomItem offHandItem = getCustomItem(event.getOffHandItem(), event.getPlayer().getInventory(), false);
         if (offHandItem != null) offHandItem.onPlayerSwapHandItems(event);
     }
 
     @EventHandler
     private void onInventoryPickupItem(InventoryPickupItemEvent event) {
-        CustomItem item = getCustomItem(event.getItem().getItemStack());
-        if (item != null) item.onInventoryPickupItem(event);
+        CustomItem item = getCustomItem(event.getItem().getItemStack(), event.getInventory(), false);
+        if (item == null) return;
+
+        item.onInventoryPickupItem(event);
+        if (!event.isCancelled()) {
+            track(item, event.getItem().getItemStack(), InstanceTracker.Kind.PICKED_UP, event.getItem(), event.getItem().getLocation());
+        }
     }
 
     @EventHandler
@@ -217,44 +931,64 @@ public class ItemManager implements Listener{
     @EventHandler
     private void onPrepareItemEnchant(PrepareItemEnchantEvent event) {
         CustomItem item = getCustomItem(event.getItem());
-        if (item != null) item.onPrepareItemEnchant(event);
+        if (item == null) return;
+
+        EnchantOfferProvider provider = item.getEnchantOfferProvider();
+        if (provider != null) enchantOfferCache.apply(item, provider, event);
+        item.onPrepareItemEnchant(event);
     }
 
     @EventHandler
     private void onPlayerPickItem(PlayerPickItemEvent event) {
-        CustomItem item = getCustomItem(event.getPlayer().getItemOnCursor());
+        CustomItem item = getCustomItem(event.getPlayer().getItemOnCursor(), event.getPlayer().getInventory(), false);
         if (item != null) item.onPlayerPickItem(event);
     }
 
     @EventHandler
     private void onPlayerAttemptPickupItem(PlayerAttemptPickupItemEvent event) {
-        CustomItem item = getCustomItem(event.getItem().getItemStack());
+        CustomItem item = getCustomItem(event.getItem().getItemStack(), event.getPlayer().getInventory(), false);
         if (item != null) item.onPlayerAttemptPickupItem(event);
     }
     @EventHandler
     private void onEntityDamageItem(EntityDamageItemEvent event) {
-        CustomItem item = getCustomItem(event.getItem());
+        CustomItem item = getCustomItem(event.getItem(), inventoryOf(event.getEntity()), false);
         if (item != null) item.onEntityDamageItem(event);
     }
 
     @EventHandler
     private void onEntityCompostItem(EntityCompostItemEvent event) {
         CustomItem item = getCustomItem(event.getItem());
-        if (item != null) item.onEntityCompostItem(event);
+        if (item == null) return;
+
+        item.onEntityCompostItem(event);
+        if (!event.isCancelled()) itemStatistics.destroyed(item, 1);
     }
 
     @EventHandler
     private void onPlayerItemCooldown(PlayerItemCooldownEvent event) {
-        CustomItem item = getCustomItem(event.getPlayer().getActiveItem());
+        CustomItem item = getCustomItem(event.getPlayer().getActiveItem(), event.getPlayer().getInventory(), false);
         if (item != null) item.onPlayerItemCooldown(event);
     }
 
     @EventHandler
     private void onPlayerStopUsingItem(PlayerStopUsingItemEvent event) {
-        CustomItem item = getCustomItem(event.getItem());
+        CustomItem item = getCustomItem(event.getItem(), event.getPlayer().getInventory(), false);
         if (item != null) item.onPlayerStopUsingItem(event);
     }
 
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onEntityRemove(EntityRemoveEvent event) {
+        // Despawning is counted by its own event, this catches items burned in lava or fire and the void
+        if (!(event.getEntity() instanceof Item dropped)) return;
+        if (event.getCause() != EntityRemoveEvent.Cause.DEATH && event.getCause() != EntityRemoveEvent.Cause.OUT_OF_WORLD) return;
+
+        CustomItem item = getCustomItem(dropped.getItemStack());
+        if (item == null) return;
+
+        itemStatistics.destroyed(item, dropped.getItemStack().getAmount());
+        track(item, dropped.getItemStack(), InstanceTracker.Kind.DESTROYED, dropped, dropped.getLocation());
+    }
+
     @EventHandler
     private void onPlayerItemFrameChange(PlayerItemFrameChangeEvent event) {
         CustomItem item = getCustomItem(event.getItemStack());
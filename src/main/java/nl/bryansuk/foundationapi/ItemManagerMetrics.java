@@ -0,0 +1,159 @@
+package nl.bryansuk.foundationapi;
+
+import org.bukkit.event.Event;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Runtime metrics of the ItemManager, published through JMX so they can be scraped without extra agents.
+ * <p>
+ * Every counter is a {@link LongAdder}, the main thread never waits for a reader. Each event handler has its
+ * own {@link HandlerMetrics} bean with latency percentiles.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public class ItemManagerMetrics implements ItemManagerMetricsMXBean {
+
+    private static final String DOMAIN = "nl.bryansuk.foundationapi";
+
+    private final JavaPlugin plugin;
+    private final Map<Class<? extends Event>, HandlerMetrics> handlers = new LinkedHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private final LongAdder resolutionHits = new LongAdder();
+    private final LongAdder resolutionMisses = new LongAdder();
+    private final LongAdder metaClonesAvoided = new LongAdder();
+
+    ItemManagerMetrics(JavaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    HandlerMetrics handler(Class<? extends Event> eventClass) {
+        return handlers.computeIfAbsent(eventClass, HandlerMetrics::new);
+    }
+
+    /*
+            Recording, called by the ItemManager
+     */
+
+    void resolved(boolean hit) {
+        if (hit) {
+            resolutionHits.increment();
+        } else {
+            resolutionMisses.increment();
+        }
+    }
+
+    void metaCloneAvoided() {
+        metaClonesAvoided.increment();
+    }
+
+    /*
+            Registration
+     */
+
+    void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String pluginName = ObjectName.quote(plugin.getName());
+        try {
+            register(server, new ObjectName(DOMAIN + ":type=ItemManager,plugin=" + pluginName), this);
+            for (HandlerMetrics handler : handlers.values()) {
+                register(server, new ObjectName(DOMAIN + ":type=Handler,plugin=" + pluginName + ",event=" + handler.getEventType()), handler);
+            }
+        } catch (JMException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not register ItemManager metrics with JMX", e);
+        }
+    }
+
+    private void register(MBeanServer server, ObjectName name, Object bean) throws JMException {
+        // A reload leaves the beans of the old plugin instance behind
+        if (server.isRegistered(name)) server.unregisterMBean(name);
+        server.registerMBean(bean, name);
+        registered.add(name);
+    }
+
+    void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                if (server.isRegistered(name)) server.unregisterMBean(name);
+            } catch (JMException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not unregister " + name, e);
+            }
+        }
+        registered.clear();
+    }
+
+    /*
+            MXBean
+     */
+
+    @Override
+    public int getRegistrySize() {
+        return ItemManager.getCustomItems().size();
+    }
+
+    @Override
+    public boolean isDispatcherOwner() {
+        return ItemManager.isDispatcherOwner();
+    }
+
+    @Override
+    public Map<String, Long> getEventCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (HandlerMetrics handler : handlers.values()) {
+            counts.put(handler.getEventType(), handler.getCount());
+        }
+        return counts;
+    }
+
+    @Override
+    public long getResolutionHits() {
+        return resolutionHits.sum();
+    }
+
+    @Override
+    public long getResolutionMisses() {
+        return resolutionMisses.sum();
+    }
+
+    @Override
+    public double getResolutionHitRatio() {
+        return ratio(resolutionHits.sum(), resolutionMisses.sum());
+    }
+
+    @Override
+    public long getMetaClonesAvoided() {
+        return metaClonesAvoided.sum();
+    }
+
+    @Override
+    public double getCraftingCacheHitRate() {
+        CraftingCache cache = ItemManager.getCraftingCache();
+        return ratio(cache.getHits(), cache.getMisses());
+    }
+
+    @Override
+    public double getEnchantOfferCacheHitRate() {
+        EnchantOfferCache cache = ItemManager.getEnchantOfferCache();
+        return ratio(cache.getHits(), cache.getMisses());
+    }
+
+    @Override
+    public void reset() {
+        resolutionHits.reset();
+        resolutionMisses.reset();
+        metaClonesAvoided.reset();
+        handlers.values().forEach(HandlerMetrics::reset);
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : hits / (double) total;
+    }
+}
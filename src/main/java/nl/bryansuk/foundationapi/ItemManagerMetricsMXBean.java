@@ -0,0 +1,30 @@
+package nl.bryansuk.foundationapi;
+
+import java.util.Map;
+
+/**
+ * JMX view of the ItemManager of a plugin, published as {@code nl.bryansuk.foundationapi:type=ItemManager,plugin=<plugin>}.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public interface ItemManagerMetricsMXBean {
+
+    int getRegistrySize();
+
+    boolean isDispatcherOwner();
+
+    Map<String, Long> getEventCounts();
+
+    long getResolutionHits();
+
+    long getResolutionMisses();
+
+    double getResolutionHitRatio();
+
+    long getMetaClonesAvoided();
+
+    double getCraftingCacheHitRate();
+
+    double getEnchantOfferCacheHitRate();
+
+    void reset();
+}
@@ -17,6 +17,9 @@ import java.util.Set;
 public class ItemMetaComparator {
 
     public static boolean containsAllMeta(ItemStack itemA, ItemStack itemB) {
+        // Without meta there is no custom model data to be equal, skip both meta clones
+        if (!itemA.hasItemMeta() || !itemB.hasItemMeta()) return false;
+
         ItemMeta metaA = itemA.getItemMeta();
         ItemMeta metaB = itemB.getItemMeta();
 
@@ -0,0 +1,20 @@
+package nl.bryansuk.foundationapi;
+
+import org.bukkit.inventory.meta.ItemMeta;
+
+/**
+ * Upgrades the data of a CustomItem by one version.
+ * <p>
+ * The migrations of a CustomItem form a chain, the migration at index {@code n} upgrades an item from
+ * version {@code n} to {@code n + 1}. Items created before any migration existed are version 0.
+ */
+@FunctionalInterface
+public interface ItemMigration {
+
+    /**
+     * Applies the upgrade to the meta of an outdated item, the meta is written back after the chain.
+     *
+     * @param meta The meta of the item.
+     */
+    void migrate(ItemMeta meta);
+}
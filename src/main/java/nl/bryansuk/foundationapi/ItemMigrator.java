@@ -0,0 +1,184 @@
+package nl.bryansuk.foundationapi;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryOpenEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.*;
+
+/**
+ * Upgrades outdated CustomItems in place through their migration chain.
+ * <p>
+ * The version of an item is stored next to its {@code custom_item} tag. Outdated items are upgraded right
+ * away when the dispatcher resolves a stack its holder keeps, like the item in hand of an interact event.
+ * Most events only carry a copy, upgrading it would be lost, so the inventory it came from is scanned
+ * instead. Inventories are scanned slot by slot and upgraded items are written back to their slot. Both
+ * share a cap per tick, so a burst of outdated items never upgrades all at once, items over the cap are
+ * upgraded when they are resolved or scanned again.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class ItemMigrator implements Listener, Runnable {
+
+    private final NamespacedKey versionKey;
+    private final Deque<ScanCursor> scans = new ArrayDeque<>();
+    // An inventory that is opened again while its scan is queued is not queued twice
+    private final Set<Inventory> scanned = Collections.newSetFromMap(new IdentityHashMap<>());
+    private int maxMigrationsPerTick = 32;
+    private int maxScansPerTick = 256;
+    private int migratedThisTick;
+    private long migrated;
+
+    ItemMigrator(JavaPlugin plugin) {
+        versionKey = new NamespacedKey(plugin, "custom_item_version");
+    }
+
+    public NamespacedKey getVersionKey() {
+        return versionKey;
+    }
+
+    /**
+     * Sets how many items may be upgraded per tick.
+     *
+     * @param maxMigrationsPerTick The maximum amount of upgrades per tick.
+     */
+    public void setMaxMigrationsPerTick(int maxMigrationsPerTick){
+        this.maxMigrationsPerTick = Math.max(1, maxMigrationsPerTick);
+    }
+
+    /**
+     * Sets how many inventory slots may be scanned for outdated items per tick.
+     *
+     * @param maxScansPerTick The maximum amount of scanned slots per tick.
+     */
+    public void setMaxScansPerTick(int maxScansPerTick){
+        this.maxScansPerTick = Math.max(1, maxScansPerTick);
+    }
+
+    public long getMigrated() {
+        return migrated;
+    }
+
+    /**
+     * Retrieves the amount of inventories that are queued or being scanned.
+     *
+     * @return The amount of pending scans.
+     */
+    public int getPending() {
+        return scans.size();
+    }
+
+    /**
+     * Queues the slots of an inventory to be checked for outdated items.
+     *
+     * @param inventory The inventory to scan.
+     */
+    public void scan(Inventory inventory){
+        if (inventory == null || !scanned.add(inventory)) return;
+        scans.add(new ScanCursor(inventory));
+    }
+
+    /**
+     * Upgrades an ItemStack right away, without waiting for the queue.
+     *
+     * @param stack The ItemStack to upgrade.
+     * @return True if the stack was outdated and has been upgraded.
+     */
+    public boolean migrate(ItemStack stack){
+        if (stack == null || !stack.hasItemMeta()) return false;
+
+        ItemMeta meta = stack.getItemMeta();
+        CustomItem item = ItemManager.getCustomItem(meta);
+        if (item == null) return false;
+
+        return migrate(stack, item, meta);
+    }
+
+    private boolean migrate(ItemStack stack, CustomItem item, ItemMeta meta) {
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        int version = container.getOrDefault(versionKey, PersistentDataType.INTEGER, 0);
+        List<ItemMigration> migrations = item.getMigrationChain();
+        if (version >= migrations.size()) return false;
+
+        for (int i = version; i < migrations.size(); i++) {
+            migrations.get(i).migrate(meta);
+        }
+        container.set(versionKey, PersistentDataType.INTEGER, migrations.size());
+        stack.setItemMeta(meta);
+        migratedThisTick++;
+        migrated++;
+        return true;
+    }
+
+    /**
+     * Upgrades a resolved item when its version is behind the version of its CustomItem and the cap of this
+     * tick is not reached. The stack has to be the one its holder keeps. The meta is the copy the dispatcher
+     * already read, it is changed and written back.
+     */
+    void offer(ItemStack stack, CustomItem item, ItemMeta meta) {
+        if (migratedThisTick >= maxMigrationsPerTick) return;
+        migrate(stack, item, meta);
+    }
+
+    /**
+     * Queues the inventory of a resolved copy when the copy is outdated, the copy itself is not upgraded.
+     */
+    void offerCopy(CustomItem item, ItemMeta meta, Inventory holder) {
+        int version = meta.getPersistentDataContainer().getOrDefault(versionKey, PersistentDataType.INTEGER, 0);
+        if (version < item.getMigrationChain().size()) scan(holder);
+    }
+
+    @Override
+    public void run() {
+        migratedThisTick = 0;
+
+        int budget = maxScansPerTick;
+        while (budget > 0 && !scans.isEmpty() && migratedThisTick < maxMigrationsPerTick) {
+            ScanCursor cursor = scans.peek();
+            Inventory inventory = cursor.inventory;
+
+            while (budget > 0 && cursor.slot < inventory.getSize() && migratedThisTick < maxMigrationsPerTick) {
+                int slot = cursor.slot++;
+                budget--;
+                ItemStack stack = inventory.getItem(slot);
+                // The stack may be a copy of the slot, an upgraded stack is put back
+                if (migrate(stack)) inventory.setItem(slot, stack);
+            }
+            if (cursor.slot >= inventory.getSize()) {
+                scans.poll();
+                scanned.remove(inventory);
+            }
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        scan(player.getInventory());
+        scan(player.getEnderChest());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onInventoryOpen(InventoryOpenEvent event) {
+        scan(event.getInventory());
+    }
+
+    private static final class ScanCursor {
+        private final Inventory inventory;
+        private int slot;
+
+        private ScanCursor(Inventory inventory) {
+            this.inventory = inventory;
+        }
+    }
+}
@@ -26,9 +26,13 @@ import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionType;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utility class for creating custom ItemStacks with specific metadata.
@@ -38,8 +42,12 @@ import java.util.Map;
 @SuppressWarnings("unused")
 public class ItemStackCreator {
 
+    // Weak keys, so a disabled plugin that is unloaded is not held on to by its interned keys
+    private static final Map<JavaPlugin, Map<String, NamespacedKey>> KEYS = Collections.synchronizedMap(new WeakHashMap<>());
+
     private final ItemStack result;
     private final ItemMeta itemMeta;
+    private FlightEvents.Build flight;
 
     /**
      * Constructor to create an ItemCreator instance with the specified material.
@@ -47,6 +55,7 @@ public class ItemStackCreator {
      * @param material The material of the ItemStack to be created.
      */
     public ItemStackCreator(Material material){
+        flight = FlightEvents.beginBuild();
         result = new ItemStack(material);
         itemMeta = result.getItemMeta();
     }
@@ -58,6 +67,8 @@ public class ItemStackCreator {
      */
     public ItemStack result(){
         result.setItemMeta(itemMeta);
+        FlightEvents.endBuild(flight, "ItemStackCreator", result.getType().name());
+        flight = null;
         return result;
     }
 
@@ -135,7 +146,11 @@ public class ItemStackCreator {
     public ItemStackCreator setLore(String... lore){
         if (lore == null || lore.length == 0) return this;
 
-        itemMeta.lore();
+        List<Component> components = new ArrayList<>(lore.length);
+        for (String line : lore) {
+            components.add(Component.text(line));
+        }
+        itemMeta.lore(components);
         return this;
     }
 
@@ -299,7 +314,7 @@ public class ItemStackCreator {
         if (key == null || dataType == null || object == null) return this;
         if (key.isEmpty() || key.isBlank()) return this;
 
-        itemMeta.getPersistentDataContainer().set(new NamespacedKey(plugin, key), dataType, object);
+        itemMeta.getPersistentDataContainer().set(internKey(plugin, key), dataType, object);
         return this;
     }
 
@@ -317,10 +332,28 @@ public class ItemStackCreator {
         if (key == null || dataType == null || object == null) return this;
         if (key.isEmpty() || key.isBlank()) return this;
 
-        itemMeta.getPersistentDataContainer().set(new NamespacedKey(ItemManager.getPlugin(), key), dataType, object);
+        itemMeta.getPersistentDataContainer().set(internKey(ItemManager.getPlugin(), key), dataType, object);
         return this;
     }
 
+    /**
+     * Writes the changed fields of a persistent record to the ItemStack.
+     *
+     * @param record The persistent record.
+     * @return The ItemCreator instance.
+     */
+    public ItemStackCreator setPersistentRecord(PersistentRecord record){
+        if (record == null) return this;
+
+        record.getSchema().write(itemMeta, record);
+        return this;
+    }
+
+    private static NamespacedKey internKey(JavaPlugin plugin, String key) {
+        return KEYS.computeIfAbsent(plugin, p -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key, k -> new NamespacedKey(plugin, k));
+    }
+
 
     /*
             Regular Item meta
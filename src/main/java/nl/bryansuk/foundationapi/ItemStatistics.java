@@ -0,0 +1,196 @@
+package nl.bryansuk.foundationapi;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Live counters of how many instances of every CustomItem were created and destroyed.
+ * <p>
+ * The counters are kept up to date from events the ItemManager already handles, so reading them is constant
+ * time and never scans the world. Created counts items made through {@link CustomItem#createItem()} and
+ * crafting, a shift click counted by the ingredients and free space it had. Destroyed counts despawned,
+ * broken, composted and burned items. The totals are written to the data folder off the main thread every
+ * five minutes and when the plugin is disabled, by item key so they survive changes of the compact ids.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class ItemStatistics implements Runnable {
+
+    private final JavaPlugin plugin;
+    private final Path file;
+    private final Map<String, long[]> loaded = new ConcurrentHashMap<>();
+    private volatile Counters[] counters = new Counters[0];
+    private long lastWritten;
+
+    ItemStatistics(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.file = plugin.getDataFolder().toPath().resolve("item-statistics.txt");
+        load();
+    }
+
+    /**
+     * Retrieves how many instances of an item were created.
+     *
+     * @param item The CustomItem.
+     * @return The amount of created items.
+     */
+    public long getCreated(CustomItem item){
+        Counters counter = counter(item);
+        return counter == null ? 0 : counter.created.sum();
+    }
+
+    /**
+     * Retrieves how many instances of an item were destroyed.
+     *
+     * @param item The CustomItem.
+     * @return The amount of destroyed items.
+     */
+    public long getDestroyed(CustomItem item){
+        Counters counter = counter(item);
+        return counter == null ? 0 : counter.destroyed.sum();
+    }
+
+    /**
+     * Retrieves how many instances of an item exist right now, created minus destroyed. Items that were
+     * handed out before the statistics existed are not known. This is not how many are held by players,
+     * that would take inventory scans, {@link DroppedItemIndex#countItems} counts the dropped ones.
+     *
+     * @param item The CustomItem.
+     * @return The amount of existing items.
+     */
+    public long getExisting(CustomItem item){
+        return getCreated(item) - getDestroyed(item);
+    }
+
+    /**
+     * Takes a snapshot of every counter, safe to call from any thread.
+     *
+     * @return The counters by item key.
+     */
+    public Map<String, Entry> snapshot(){
+        Map<String, Entry> snapshot = new TreeMap<>();
+        for (Map.Entry<String, long[]> entry : loaded.entrySet()) {
+            snapshot.put(entry.getKey(), new Entry(entry.getValue()[0], entry.getValue()[1]));
+        }
+        for (Counters counter : counters) {
+            if (counter != null) snapshot.put(counter.key, new Entry(counter.created.sum(), counter.destroyed.sum()));
+        }
+        return snapshot;
+    }
+
+    /*
+            Counting, called by the ItemManager
+     */
+
+    void register(CustomItem item) {
+        Counters[] current = counters;
+        Counters[] grown = current.length > item.getId() ? current.clone() : Arrays.copyOf(current, item.getId() + 16);
+
+        Counters previous = grown[item.getId()];
+        if (previous != null) {
+            if (previous.key.equals(item.getKey())) return;
+            loaded.put(previous.key, new long[]{previous.created.sum(), previous.destroyed.sum()});
+        }
+
+        Counters counter = new Counters(item.getKey());
+        long[] totals = loaded.remove(item.getKey());
+        if (totals != null) {
+            counter.created.add(totals[0]);
+            counter.destroyed.add(totals[1]);
+        }
+        grown[item.getId()] = counter;
+        counters = grown;
+    }
+
+    void created(CustomItem item, int amount) {
+        Counters counter = counter(item);
+        if (counter != null) counter.created.add(amount);
+    }
+
+    void destroyed(CustomItem item, int amount) {
+        Counters counter = counter(item);
+        if (counter != null) counter.destroyed.add(amount);
+    }
+
+    private Counters counter(CustomItem item) {
+        Counters[] current = counters;
+        int id = item.getId();
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /*
+            Persistence
+     */
+
+    @Override
+    public synchronized void run() {
+        Map<String, Entry> snapshot = snapshot();
+        long total = 0;
+        for (Entry entry : snapshot.values()) {
+            total += entry.created() + entry.destroyed();
+        }
+        // Counters only grow, an equal sum means nothing changed
+        if (total == lastWritten) return;
+
+        StringBuilder out = new StringBuilder("# key created destroyed\n");
+        snapshot.forEach((key, entry) -> out.append(key).append(' ').append(entry.created()).append(' ').append(entry.destroyed()).append('\n'));
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temp, out, StandardCharsets.UTF_8);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastWritten = total;
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not write item statistics to " + file, e);
+        }
+    }
+
+    private void load() {
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank() || line.startsWith("#")) continue;
+
+                String[] parts = line.strip().split(" ");
+                if (parts.length != 3) continue;
+                loaded.put(parts[0], new long[]{Long.parseLong(parts[1]), Long.parseLong(parts[2])});
+            }
+        } catch (NoSuchFileException ignored) {
+            // First start, nothing counted yet
+        } catch (IOException | NumberFormatException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not read item statistics from " + file + ", counting starts over", e);
+        }
+    }
+
+    /**
+     * Counters of one CustomItem.
+     *
+     * @param created The amount of created items.
+     * @param destroyed The amount of destroyed items.
+     */
+    public record Entry(long created, long destroyed) {
+
+        public long existing() {
+            return created - destroyed;
+        }
+    }
+
+    private static final class Counters {
+        private final String key;
+        private final LongAdder created = new LongAdder();
+        private final LongAdder destroyed = new LongAdder();
+
+        private Counters(String key) {
+            this.key = key;
+        }
+    }
+}
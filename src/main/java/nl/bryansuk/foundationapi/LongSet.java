@@ -0,0 +1,111 @@
+package nl.bryansuk.foundationapi;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing set of primitive longs, without boxing every element.
+ * <p>
+ * A slot of 0 marks an empty slot, the key 0 itself is tracked by a separate flag. Copying the set is a
+ * plain array copy, so a snapshot can be taken on the main thread and read on another.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+final class LongSet {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private boolean containsZero;
+    private int size;
+
+    LongSet() {
+        this(MIN_CAPACITY);
+    }
+
+    LongSet(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expected * 2) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+    }
+
+    private LongSet(long[] keys, boolean containsZero, int size) {
+        this.keys = keys;
+        this.containsZero = containsZero;
+        this.size = size;
+    }
+
+    boolean contains(long key) {
+        if (key == 0) return containsZero;
+
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != 0) {
+            if (keys[index] == key) return true;
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    boolean add(long key) {
+        if (key == 0) {
+            if (containsZero) return false;
+            containsZero = true;
+            size++;
+            return true;
+        }
+
+        if ((size + 1) * 2 > keys.length) grow();
+
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != 0) {
+            if (keys[index] == key) return false;
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        size++;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    LongSet copy() {
+        return new LongSet(keys.clone(), containsZero, size);
+    }
+
+    long[] toArray() {
+        long[] result = new long[size];
+        int count = 0;
+        if (containsZero) result[count++] = 0;
+        for (long key : keys) {
+            if (key != 0) result[count++] = key;
+        }
+        return count == size ? result : Arrays.copyOf(result, count);
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        keys = new long[oldKeys.length * 2];
+
+        int mask = keys.length - 1;
+        for (long key : oldKeys) {
+            if (key == 0) continue;
+
+            int index = hash(key) & mask;
+            while (keys[index] != 0) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+        }
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
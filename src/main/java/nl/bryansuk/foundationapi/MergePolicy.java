@@ -0,0 +1,135 @@
+package nl.bryansuk.foundationapi;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+
+import java.util.Set;
+
+/**
+ * Declares how dropped entities of a CustomItem merge with each other.
+ * <p>
+ * Vanilla only merges stacks with equal components, so any per-instance persistent data stops a merge.
+ * A {@link Mode#BY_ID} policy merges dropped stacks of the same CustomItem as soon as they spawn, ignoring
+ * the listed persistent data keys. Only the CustomItem and the other persistent data are compared, not the
+ * rest of the meta, so a renamed or damaged stack merges too. The merged stack keeps the meta of the stack
+ * it merged into.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public final class MergePolicy {
+
+    public enum Mode {
+        VANILLA,
+        NEVER,
+        BY_ID
+    }
+
+    private static final double DEFAULT_RADIUS = 2.5;
+    private static final MergePolicy VANILLA = new MergePolicy(Mode.VANILLA, new NamespacedKey[0], Integer.MAX_VALUE, DEFAULT_RADIUS);
+    private static final MergePolicy NEVER = new MergePolicy(Mode.NEVER, new NamespacedKey[0], Integer.MAX_VALUE, DEFAULT_RADIUS);
+
+    private final Mode mode;
+    private final NamespacedKey[] ignoredKeys;
+    private final int maxAmount;
+    private final double radius;
+
+    private MergePolicy(Mode mode, NamespacedKey[] ignoredKeys, int maxAmount, double radius) {
+        this.mode = mode;
+        this.ignoredKeys = ignoredKeys;
+        this.maxAmount = maxAmount;
+        this.radius = radius;
+    }
+
+    /**
+     * Leaves merging to vanilla, this is the default policy.
+     *
+     * @return The vanilla policy.
+     */
+    public static MergePolicy vanilla(){
+        return VANILLA;
+    }
+
+    /**
+     * Never merges dropped entities of the item.
+     *
+     * @return The never policy.
+     */
+    public static MergePolicy never(){
+        return NEVER;
+    }
+
+    /**
+     * Merges dropped entities of the same CustomItem, ignoring the given persistent data keys.
+     *
+     * @param ignoredKeys The per-instance keys that may differ between merged stacks.
+     * @return The by id policy.
+     */
+    public static MergePolicy byId(NamespacedKey... ignoredKeys){
+        NamespacedKey[] keys = ignoredKeys == null ? new NamespacedKey[0] : ignoredKeys.clone();
+        return new MergePolicy(Mode.BY_ID, keys, Integer.MAX_VALUE, DEFAULT_RADIUS);
+    }
+
+    /**
+     * Caps the amount a merged stack may reach.
+     *
+     * @param maxAmount The maximum amount of a merged stack.
+     * @return A copy of this policy with the cap applied.
+     */
+    public MergePolicy withMaxAmount(int maxAmount){
+        return new MergePolicy(mode, ignoredKeys, Math.max(1, maxAmount), radius);
+    }
+
+    /**
+     * Sets the radius in which a {@link Mode#BY_ID} policy looks for a stack to merge into.
+     *
+     * @param radius The radius in blocks.
+     * @return A copy of this policy with the radius applied.
+     */
+    public MergePolicy withRadius(double radius){
+        return new MergePolicy(mode, ignoredKeys, maxAmount, Math.max(0, radius));
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Set<NamespacedKey> getIgnoredKeys() {
+        return Set.of(ignoredKeys);
+    }
+
+    public int getMaxAmount() {
+        return maxAmount;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    boolean allowsMerge(int combinedAmount, int maxStackSize) {
+        if (mode == Mode.NEVER) return false;
+        return combinedAmount <= Math.min(maxAmount, maxStackSize);
+    }
+
+    boolean matches(ItemStack stack, ItemStack target) {
+        if (stack.getType() != target.getType()) return false;
+
+        // Both metas are copies already, the ignored keys can be removed from them without touching the stacks
+        ItemMeta meta = stack.getItemMeta();
+        ItemMeta targetMeta = target.getItemMeta();
+        if (meta == null || targetMeta == null) return false;
+
+        CustomItem item = ItemManager.getCustomItem(meta);
+        CustomItem targetItem = ItemManager.getCustomItem(targetMeta);
+        if (item == null || targetItem == null || item.getId() != targetItem.getId()) return false;
+
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        PersistentDataContainer targetContainer = targetMeta.getPersistentDataContainer();
+        for (NamespacedKey key : ignoredKeys) {
+            container.remove(key);
+            targetContainer.remove(key);
+        }
+        return container.equals(targetContainer);
+    }
+}
@@ -0,0 +1,366 @@
+package nl.bryansuk.foundationapi;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Container;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Background sweep that upgrades outdated CustomItems in online player inventories, ender chests and the
+ * containers of loaded chunks.
+ * <p>
+ * Work is done in small slices with a fixed time budget per tick, finding the chunks to sweep included: a
+ * pass walks the loaded chunks of every world with a cursor that resumes on the next tick when the budget
+ * runs out. Swept chunks and players are remembered in the data folder, so a restart continues where the
+ * sweep left off. Progress is reset when the versions of the registered items change.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class MigrationSweep implements Listener, Runnable {
+
+    private static final int FILE_MAGIC = 0x4D535750;
+    private static final long IDLE_TICKS = 200;
+    private static final long REPORT_INTERVAL_NANOS = 60_000_000_000L;
+    private static final long SAVE_INTERVAL_NANOS = 30_000_000_000L;
+    private static final int PLAN_BATCH = 64;
+
+    private final JavaPlugin plugin;
+    private final File progressFile;
+    private final Map<UUID, LongSet> sweptChunks = new HashMap<>();
+    private final Set<UUID> sweptPlayers = new HashSet<>();
+    private final Deque<Object> work = new ArrayDeque<>();
+
+    private BukkitTask task;
+    private long budgetNanos = 1_000_000L;
+    private long signature;
+    private long idleUntilTick;
+
+    // Cursor of the current planning pass, null worlds means no pass is in progress
+    private @Nullable List<World> planWorlds;
+    private int planWorld;
+    private Chunk @Nullable [] planChunks;
+    private int planChunk;
+    private @Nullable UUID planWorldId;
+
+    private long scannedItems;
+    private long upgradedItems;
+    private long busyNanos;
+    private long lastReport;
+    private long lastSave;
+
+    MigrationSweep(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.progressFile = new File(plugin.getDataFolder(), "migration-sweep.dat");
+    }
+
+    /**
+     * Starts the sweep, progress saved by an earlier run is picked up when the item versions still match.
+     */
+    public void start(){
+        if (task != null) return;
+
+        signature = registrySignature();
+        if (signature == 0) return;
+
+        load();
+        planWorlds = null;
+        lastReport = lastSave = System.nanoTime();
+        task = Bukkit.getScheduler().runTaskTimer(plugin, this, 1L, 1L);
+    }
+
+    /**
+     * Stops the sweep and saves its progress.
+     */
+    public void stop(){
+        if (task == null) return;
+
+        task.cancel();
+        task = null;
+        save(false);
+    }
+
+    public boolean isRunning(){
+        return task != null;
+    }
+
+    /**
+     * Sets how much time the sweep may spend per tick.
+     *
+     * @param millis The budget in milliseconds per tick.
+     */
+    public void setBudgetMillis(double millis){
+        this.budgetNanos = Math.max(50_000L, (long) (millis * 1_000_000L));
+    }
+
+    /**
+     * Retrieves a snapshot of the progress of the sweep.
+     *
+     * @return The progress.
+     */
+    public Progress getProgress(){
+        int chunks = 0;
+        for (LongSet swept : sweptChunks.values()) {
+            chunks += swept.size();
+        }
+
+        double seconds = busyNanos / 1_000_000_000.0;
+        double throughput = seconds > 0 ? scannedItems / seconds : 0;
+        return new Progress(isRunning(), chunks, sweptPlayers.size(), work.size(), scannedItems, upgradedItems, throughput);
+    }
+
+    @Override
+    public void run() {
+        if (Bukkit.getCurrentTick() < idleUntilTick) return;
+
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+
+        while (System.nanoTime() < deadline) {
+            if (work.isEmpty() && !plan(deadline) && work.isEmpty()) {
+                // Everything loaded has been swept, look again for newly loaded chunks later
+                idleUntilTick = Bukkit.getCurrentTick() + IDLE_TICKS;
+                break;
+            }
+
+            Object unit = work.poll();
+            if (unit instanceof UUID uuid) {
+                sweepPlayer(uuid);
+            } else if (unit instanceof ChunkWork chunk) {
+                sweepChunk(chunk);
+            }
+        }
+
+        long now = System.nanoTime();
+        busyNanos += now - start;
+
+        if (now - lastReport >= REPORT_INTERVAL_NANOS) {
+            lastReport = now;
+            plugin.getLogger().info("Migration sweep: " + getProgress());
+        }
+        if (now - lastSave >= SAVE_INTERVAL_NANOS) {
+            lastSave = now;
+            save(true);
+        }
+    }
+
+    @EventHandler
+    private void onPluginDisable(PluginDisableEvent event) {
+        if (event.getPlugin() == plugin) stop();
+    }
+
+    /**
+     * Queues the next batch of unswept chunks, continuing the current pass or starting a new one.
+     *
+     * @return False when the pass ended, true when it continues on the next call.
+     */
+    private boolean plan(long deadline) {
+        if (planWorlds == null) {
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                if (!sweptPlayers.contains(player.getUniqueId())) work.add(player.getUniqueId());
+            }
+            planWorlds = Bukkit.getWorlds();
+            planWorld = 0;
+            planChunks = null;
+        }
+
+        while (System.nanoTime() < deadline) {
+            if (planChunks == null) {
+                if (planWorld >= planWorlds.size()) {
+                    planWorlds = null;
+                    return false;
+                }
+
+                World world = planWorlds.get(planWorld++);
+                planChunks = world.getLoadedChunks();
+                planChunk = 0;
+                planWorldId = world.getUID();
+            }
+
+            LongSet swept = sweptChunks.get(planWorldId);
+            while (planChunk < planChunks.length) {
+                Chunk chunk = planChunks[planChunk++];
+                long key = chunkKey(chunk.getX(), chunk.getZ());
+                if (swept == null || !swept.contains(key)) work.add(new ChunkWork(planWorldId, key));
+                if (work.size() >= PLAN_BATCH) return true;
+            }
+            planChunks = null;
+        }
+        return true;
+    }
+
+    private void sweepPlayer(UUID uuid) {
+        Player player = Bukkit.getPlayer(uuid);
+        if (player == null) return;
+
+        sweep(player.getInventory());
+        sweep(player.getEnderChest());
+        sweptPlayers.add(uuid);
+    }
+
+    private void sweepChunk(ChunkWork work) {
+        World world = Bukkit.getWorld(work.world);
+        int x = (int) work.key;
+        int z = (int) (work.key >>> 32);
+        if (world == null || !world.isChunkLoaded(x, z)) return;
+
+        for (BlockState state : world.getChunkAt(x, z).getTileEntities(false)) {
+            if (state instanceof Container container) sweep(container.getInventory());
+        }
+        sweptChunks.computeIfAbsent(work.world, uuid -> new LongSet()).add(work.key);
+    }
+
+    private void sweep(Inventory inventory) {
+        ItemMigrator migrator = ItemManager.getItemMigrator();
+        for (int slot = 0; slot < inventory.getSize(); slot++) {
+            ItemStack stack = inventory.getItem(slot);
+            if (stack == null || !stack.hasItemMeta()) continue;
+
+            scannedItems++;
+            // The stack may be a copy of the slot, an upgraded stack is put back like ItemMigrator does
+            if (migrator.migrate(stack)) {
+                inventory.setItem(slot, stack);
+                upgradedItems++;
+            }
+        }
+    }
+
+    private static long registrySignature() {
+        long signature = 0;
+        boolean outdated = false;
+        for (CustomItem item : ItemManager.getCustomItems()) {
+            signature = signature * 31 + item.getClass().getSimpleName().hashCode();
+            signature = signature * 31 + item.getVersion();
+            if (item.getVersion() > 0) outdated = true;
+        }
+        return outdated ? signature | 1 : 0;
+    }
+
+    private static long chunkKey(int x, int z) {
+        return (long) x & 0xffffffffL | ((long) z & 0xffffffffL) << 32;
+    }
+
+    /*
+            Persistence
+     */
+
+    private void load() {
+        sweptChunks.clear();
+        sweptPlayers.clear();
+        if (!progressFile.isFile()) return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(progressFile)))) {
+            if (in.readInt() != FILE_MAGIC || in.readLong() != signature) return;
+
+            upgradedItems = in.readLong();
+            int worlds = in.readInt();
+            for (int i = 0; i < worlds; i++) {
+                UUID world = new UUID(in.readLong(), in.readLong());
+                int chunks = in.readInt();
+                LongSet swept = new LongSet(chunks);
+                for (int j = 0; j < chunks; j++) {
+                    swept.add(in.readLong());
+                }
+                sweptChunks.put(world, swept);
+            }
+
+            int players = in.readInt();
+            for (int i = 0; i < players; i++) {
+                sweptPlayers.add(new UUID(in.readLong(), in.readLong()));
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not read migration sweep progress, starting over", e);
+            sweptChunks.clear();
+            sweptPlayers.clear();
+        }
+    }
+
+    private void save(boolean async) {
+        // Copy the tables on the main thread, unpack and write them on another
+        Map<UUID, LongSet> chunks = new HashMap<>();
+        for (Map.Entry<UUID, LongSet> entry : sweptChunks.entrySet()) {
+            chunks.put(entry.getKey(), entry.getValue().copy());
+        }
+        List<UUID> players = new ArrayList<>(sweptPlayers);
+        long signature = this.signature;
+        long upgraded = this.upgradedItems;
+
+        Runnable write = () -> write(signature, upgraded, chunks, players);
+        if (async) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, write);
+        } else {
+            write.run();
+        }
+    }
+
+    private synchronized void write(long signature, long upgraded, Map<UUID, LongSet> chunks, List<UUID> players) {
+        File temp = new File(progressFile.getParentFile(), progressFile.getName() + ".tmp");
+        try {
+            Files.createDirectories(progressFile.getParentFile().toPath());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeLong(signature);
+                out.writeLong(upgraded);
+
+                out.writeInt(chunks.size());
+                for (Map.Entry<UUID, LongSet> entry : chunks.entrySet()) {
+                    long[] keys = entry.getValue().toArray();
+                    out.writeLong(entry.getKey().getMostSignificantBits());
+                    out.writeLong(entry.getKey().getLeastSignificantBits());
+                    out.writeInt(keys.length);
+                    for (long key : keys) {
+                        out.writeLong(key);
+                    }
+                }
+
+                out.writeInt(players.size());
+                for (UUID player : players) {
+                    out.writeLong(player.getMostSignificantBits());
+                    out.writeLong(player.getLeastSignificantBits());
+                }
+            }
+            Files.move(temp.toPath(), progressFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not save migration sweep progress", e);
+        }
+    }
+
+    private record ChunkWork(UUID world, long key) {
+    }
+
+    /**
+     * Snapshot of the progress of the sweep.
+     *
+     * @param running Whether the sweep is running.
+     * @param sweptChunks The amount of chunks swept.
+     * @param sweptPlayers The amount of players swept.
+     * @param queued The amount of chunks and players queued in the current pass.
+     * @param scannedItems The amount of item stacks with meta that were checked.
+     * @param upgradedItems The amount of item stacks that were upgraded.
+     * @param itemsPerSecond The amount of checked stacks per second of sweep time.
+     */
+    public record Progress(boolean running, int sweptChunks, int sweptPlayers, int queued,
+                           long scannedItems, long upgradedItems, double itemsPerSecond) {
+
+        @Override
+        public String toString() {
+            return String.format("%d chunks, %d players swept, %d queued, %d items checked, %d upgraded, %.0f items/s",
+                    sweptChunks, sweptPlayers, queued, scannedItems, upgradedItems, itemsPerSecond);
+        }
+    }
+}
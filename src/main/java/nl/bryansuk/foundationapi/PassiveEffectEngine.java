@@ -0,0 +1,274 @@
+package nl.bryansuk.foundationapi;
+
+import com.destroystokyo.paper.event.player.PlayerArmorChangeEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.*;
+import org.bukkit.inventory.EquipmentSlot;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.util.*;
+
+/**
+ * Ticks the passive effects of equipped CustomItems from a single repeating task.
+ * <p>
+ * Players are only visited while they have an item with a passive effect equipped. Items that share a
+ * tick interval are batched into one group, and the players in a group are spread over the ticks of
+ * that interval so the work of an interval is not done all on the same tick.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class PassiveEffectEngine implements Listener, Runnable {
+
+    private static final EquipmentSlot[] SLOTS = {
+            EquipmentSlot.HAND,
+            EquipmentSlot.OFF_HAND,
+            EquipmentSlot.HEAD,
+            EquipmentSlot.CHEST,
+            EquipmentSlot.LEGS,
+            EquipmentSlot.FEET
+    };
+
+    private final Map<UUID, Equipment> equipped = new HashMap<>();
+    private final Map<Integer, IntervalGroup> groups = new HashMap<>();
+    private final Set<UUID> dirty = new LinkedHashSet<>();
+    private int nextPhase;
+    private long tick;
+
+    PassiveEffectEngine() {
+    }
+
+    /**
+     * Schedules the equipment of a player to be checked again on the next tick.
+     * Use this after changing equipment in a way that does not fire an event.
+     *
+     * @param player The player to refresh.
+     */
+    public void refresh(Player player){
+        if (player == null) return;
+        dirty.add(player.getUniqueId());
+    }
+
+    /**
+     * Schedules the equipment of every online player to be checked again on the next tick.
+     */
+    public void refreshAll(){
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            dirty.add(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Retrieves the amount of players that currently have at least one passive item equipped.
+     *
+     * @return The amount of tracked players.
+     */
+    public int getTrackedPlayers(){
+        return equipped.size();
+    }
+
+    @Override
+    public void run() {
+        if (!dirty.isEmpty()) {
+            for (UUID uuid : dirty) {
+                rescan(uuid);
+            }
+            dirty.clear();
+        }
+
+        tick++;
+        for (IntervalGroup group : groups.values()) {
+            List<Equipment> bucket = group.phases[(int) (tick % group.interval)];
+            for (int i = 0; i < bucket.size(); i++) {
+                bucket.get(i).tick(group.interval);
+            }
+        }
+    }
+
+    private void rescan(UUID uuid) {
+        Equipment equipment = equipped.get(uuid);
+        Player player = Bukkit.getPlayer(uuid);
+
+        if (player == null || !player.isOnline() || player.isDead()) {
+            if (equipment != null) untrack(equipment);
+            return;
+        }
+
+        if (equipment == null) equipment = new Equipment(player, nextPhase++);
+
+        Set<Integer> before = equipment.intervals();
+        equipment.scan();
+        Set<Integer> after = equipment.intervals();
+
+        for (Integer interval : before) {
+            if (!after.contains(interval)) groups.get(interval).remove(equipment);
+        }
+        for (Integer interval : after) {
+            if (!before.contains(interval)) groups.computeIfAbsent(interval, IntervalGroup::new).add(equipment);
+        }
+
+        if (after.isEmpty()) {
+            equipped.remove(uuid);
+        } else {
+            equipped.put(uuid, equipment);
+        }
+    }
+
+    private void untrack(Equipment equipment) {
+        for (Integer interval : equipment.intervals()) {
+            groups.get(interval).remove(equipment);
+        }
+        equipped.remove(equipment.player.getUniqueId());
+    }
+
+    /*
+            Equipment changes
+     */
+
+    private void markDirty(HumanEntity entity) {
+        if (entity instanceof Player player) dirty.add(player.getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onJoin(PlayerJoinEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onQuit(PlayerQuitEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onRespawn(PlayerRespawnEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onDeath(PlayerDeathEvent event) {
+        markDirty(event.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onHeldItem(PlayerItemHeldEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onSwapHandItems(PlayerSwapHandItemsEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onArmorChange(PlayerArmorChangeEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onInventoryClick(InventoryClickEvent event) {
+        markDirty(event.getWhoClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onInventoryDrag(InventoryDragEvent event) {
+        markDirty(event.getWhoClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onDropItem(PlayerDropItemEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onPickupItem(EntityPickupItemEvent event) {
+        if (event.getEntity() instanceof Player player) markDirty(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onItemBreak(PlayerItemBreakEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onConsume(PlayerItemConsumeEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    private void onBlockPlace(BlockPlaceEvent event) {
+        markDirty(event.getPlayer());
+    }
+
+    /*
+            Bookkeeping
+     */
+
+    private static final class Equipment {
+        private final Player player;
+        private final int phase;
+        private final CustomItem[] items = new CustomItem[SLOTS.length];
+
+        private Equipment(Player player, int phase) {
+            this.player = player;
+            this.phase = phase;
+        }
+
+        private void scan() {
+            PlayerInventory inventory = player.getInventory();
+            for (int i = 0; i < SLOTS.length; i++) {
+                CustomItem item = ItemManager.getCustomItem(inventory.getItem(SLOTS[i]));
+                items[i] = item != null && item.getPassiveTickInterval() > 0 ? item : null;
+            }
+        }
+
+        private Set<Integer> intervals() {
+            Set<Integer> intervals = new HashSet<>();
+            for (CustomItem item : items) {
+                if (item != null) intervals.add(item.getPassiveTickInterval());
+            }
+            return intervals;
+        }
+
+        private void tick(int interval) {
+            for (int i = 0; i < items.length; i++) {
+                CustomItem item = items[i];
+                if (item == null || item.getPassiveTickInterval() != interval) continue;
+
+                ItemStack stack = player.getInventory().getItem(SLOTS[i]);
+                item.onPassiveTick(player, stack, SLOTS[i]);
+            }
+        }
+    }
+
+    private static final class IntervalGroup {
+        private final int interval;
+        private final List<Equipment>[] phases;
+
+        @SuppressWarnings("unchecked")
+        private IntervalGroup(int interval) {
+            this.interval = interval;
+            this.phases = new List[interval];
+            for (int i = 0; i < interval; i++) {
+                phases[i] = new ArrayList<>();
+            }
+        }
+
+        private void add(Equipment equipment) {
+            phases[equipment.phase % interval].add(equipment);
+        }
+
+        private void remove(Equipment equipment) {
+            phases[equipment.phase % interval].remove(equipment);
+        }
+    }
+}
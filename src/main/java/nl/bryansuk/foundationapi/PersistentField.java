@@ -0,0 +1,71 @@
+package nl.bryansuk.foundationapi;
+
+import nl.bryansuk.foundationapi.exceptions.ItemManagerException;
+import org.bukkit.NamespacedKey;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+
+import javax.annotation.Nullable;
+
+/**
+ * A persistent data field with a fixed key and type, declared once and reused for every read and write.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ *
+ * @param <P> The primitive type of the field.
+ * @param <C> The complex type of the field.
+ */
+@SuppressWarnings("unused")
+public final class PersistentField<P, C> {
+
+    private final NamespacedKey key;
+    private final PersistentDataType<P, C> dataType;
+    private final @Nullable C defaultValue;
+
+    private PersistentField(NamespacedKey key, PersistentDataType<P, C> dataType, @Nullable C defaultValue) {
+        this.key = key;
+        this.dataType = dataType;
+        this.defaultValue = defaultValue;
+    }
+
+    /**
+     * Declares a field in the namespace of a plugin.
+     *
+     * @param plugin The plugin that owns the field.
+     * @param key The key of the field.
+     * @param dataType The persistent data type of the field.
+     * @param defaultValue The value read when the field is missing, may be null.
+     * @param <P> The primitive type of the field.
+     * @param <C> The complex type of the field.
+     * @return The field.
+     */
+    public static <P, C> PersistentField<P, C> of(Plugin plugin, String key, PersistentDataType<P, C> dataType, @Nullable C defaultValue){
+        return of(new NamespacedKey(plugin, key), dataType, defaultValue);
+    }
+
+    /**
+     * Declares a field with an existing key.
+     *
+     * @param key The key of the field.
+     * @param dataType The persistent data type of the field.
+     * @param defaultValue The value read when the field is missing, may be null.
+     * @param <P> The primitive type of the field.
+     * @param <C> The complex type of the field.
+     * @return The field.
+     */
+    public static <P, C> PersistentField<P, C> of(NamespacedKey key, PersistentDataType<P, C> dataType, @Nullable C defaultValue){
+        if (key == null || dataType == null) throw new ItemManagerException("Persistent field needs a key and a type!");
+        return new PersistentField<>(key, dataType, defaultValue);
+    }
+
+    public NamespacedKey getKey() {
+        return key;
+    }
+
+    public PersistentDataType<P, C> getDataType() {
+        return dataType;
+    }
+
+    public @Nullable C getDefaultValue() {
+        return defaultValue;
+    }
+}
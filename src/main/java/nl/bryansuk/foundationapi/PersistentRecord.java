@@ -0,0 +1,74 @@
+package nl.bryansuk.foundationapi;
+
+import javax.annotation.Nullable;
+
+/**
+ * The values of all fields of a {@link PersistentSchema}, read from or written to an item in one go.
+ * Only fields that were set are written back.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public final class PersistentRecord {
+
+    private final PersistentSchema schema;
+    private final Object[] values;
+    private final boolean[] changed;
+
+    PersistentRecord(PersistentSchema schema, Object[] values) {
+        this.schema = schema;
+        this.values = values;
+        this.changed = new boolean[values.length];
+    }
+
+    public PersistentSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Retrieves the value of a field.
+     *
+     * @param field The field, it must be part of the schema of this record.
+     * @param <C> The complex type of the field.
+     * @return The value, or the default of the field when the item did not have it.
+     */
+    @SuppressWarnings("unchecked")
+    public <C> @Nullable C get(PersistentField<?, C> field){
+        return (C) values[schema.indexOf(field)];
+    }
+
+    /**
+     * Sets the value of a field, a null value removes the field from the item when written.
+     *
+     * @param field The field, it must be part of the schema of this record.
+     * @param value The new value.
+     * @param <C> The complex type of the field.
+     * @return The PersistentRecord instance.
+     */
+    public <C> PersistentRecord set(PersistentField<?, C> field, @Nullable C value){
+        int index = schema.indexOf(field);
+        values[index] = value;
+        changed[index] = true;
+        return this;
+    }
+
+    Object value(int index) {
+        return values[index];
+    }
+
+    boolean isChanged(int index) {
+        return changed[index];
+    }
+
+    boolean hasChanges() {
+        for (boolean c : changed) {
+            if (c) return true;
+        }
+        return false;
+    }
+
+    void markWritten() {
+        for (int i = 0; i < changed.length; i++) {
+            changed[i] = false;
+        }
+    }
+}
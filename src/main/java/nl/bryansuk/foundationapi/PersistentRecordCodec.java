@@ -0,0 +1,148 @@
+package nl.bryansuk.foundationapi;
+
+import nl.bryansuk.foundationapi.exceptions.ItemManagerException;
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+
+/**
+ * Maps a Java record onto a {@link PersistentSchema}, so an item can be read as one typed object.
+ * <p>
+ * Every record component is bound to the schema field whose key has the same name, in snake case for
+ * camel case components. The bindings and method handles are resolved once when the codec is created.
+ * A primitive component whose field is missing and has no default value decodes to zero or false.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ *
+ * @param <T> The record type.
+ */
+@SuppressWarnings("unused")
+public final class PersistentRecordCodec<T extends Record> {
+
+    private final PersistentSchema schema;
+    private final PersistentField<?, ?>[] fields;
+    private final MethodHandle[] accessors;
+    private final Object[] zeros;
+    private final MethodHandle constructor;
+
+    private PersistentRecordCodec(PersistentSchema schema, PersistentField<?, ?>[] fields, MethodHandle[] accessors, Object[] zeros, MethodHandle constructor) {
+        this.schema = schema;
+        this.fields = fields;
+        this.accessors = accessors;
+        this.zeros = zeros;
+        this.constructor = constructor;
+    }
+
+    /**
+     * Creates a codec for a record type.
+     *
+     * @param type The record type.
+     * @param schema The schema that holds a field for every record component.
+     * @param <T> The record type.
+     * @return The codec.
+     */
+    public static <T extends Record> PersistentRecordCodec<T> of(Class<T> type, PersistentSchema schema){
+        RecordComponent[] components = type.getRecordComponents();
+        PersistentField<?, ?>[] fields = new PersistentField[components.length];
+        MethodHandle[] accessors = new MethodHandle[components.length];
+        Class<?>[] parameterTypes = new Class[components.length];
+        Object[] zeros = new Object[components.length];
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        try {
+            for (int i = 0; i < components.length; i++) {
+                RecordComponent component = components[i];
+                PersistentField<?, ?> field = find(schema, component.getName());
+                Class<?> boxed = MethodType.methodType(component.getType()).wrap().returnType();
+
+                if (!boxed.isAssignableFrom(field.getDataType().getComplexType())) {
+                    throw new ItemManagerException("Component " + component.getName() + " of " + type.getSimpleName()
+                            + " cannot hold " + field.getDataType().getComplexType().getSimpleName());
+                }
+
+                Method accessor = component.getAccessor();
+                accessor.setAccessible(true);
+                fields[i] = field;
+                accessors[i] = lookup.unreflect(accessor);
+                parameterTypes[i] = component.getType();
+                // A null cannot be passed for a primitive, a missing value falls back to its zero value
+                if (component.getType().isPrimitive()) zeros[i] = Array.get(Array.newInstance(component.getType(), 1), 0);
+            }
+
+            Constructor<T> canonical = type.getDeclaredConstructor(parameterTypes);
+            canonical.setAccessible(true);
+            MethodHandle constructor = lookup.unreflectConstructor(canonical)
+                    .asSpreader(Object[].class, components.length);
+            return new PersistentRecordCodec<>(schema, fields, accessors, zeros, constructor);
+        } catch (ReflectiveOperationException e) {
+            throw new ItemManagerException("Could not create a codec for " + type.getSimpleName(), e);
+        }
+    }
+
+    public PersistentSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Reads an ItemStack into a record with a single meta clone.
+     *
+     * @param stack The ItemStack.
+     * @return The record.
+     */
+    public T read(ItemStack stack){
+        return decode(schema.read(stack));
+    }
+
+    /**
+     * Writes all components of a record to an ItemStack in a single meta round trip.
+     *
+     * @param stack The ItemStack.
+     * @param value The record.
+     */
+    public void write(ItemStack stack, T value){
+        schema.write(stack, encode(value));
+    }
+
+    @SuppressWarnings("unchecked")
+    public T decode(PersistentRecord record){
+        Object[] arguments = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            Object value = record.get(fields[i]);
+            arguments[i] = value == null ? zeros[i] : value;
+        }
+
+        try {
+            return (T) constructor.invoke(arguments);
+        } catch (Throwable e) {
+            throw new ItemManagerException("Could not decode persistent record", e);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public PersistentRecord encode(T value){
+        PersistentRecord record = schema.newRecord();
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                record.set((PersistentField) fields[i], accessors[i].invoke(value));
+            }
+        } catch (Throwable e) {
+            throw new ItemManagerException("Could not encode persistent record", e);
+        }
+        return record;
+    }
+
+    private static PersistentField<?, ?> find(PersistentSchema schema, String name) {
+        // Keys can only be lower case, killCount is looked up as kill_count
+        String snakeCase = name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+        for (PersistentField<?, ?> field : schema.getFields()) {
+            String key = field.getKey().getKey();
+            if (key.equals(name) || key.equals(snakeCase)) return field;
+        }
+        throw new ItemManagerException("Schema has no field named " + name);
+    }
+}
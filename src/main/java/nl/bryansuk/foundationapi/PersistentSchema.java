@@ -0,0 +1,170 @@
+package nl.bryansuk.foundationapi;
+
+import nl.bryansuk.foundationapi.exceptions.ItemManagerException;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The persistent data layout of a CustomItem, declared once with fixed keys and types.
+ * <p>
+ * All fields of an item are read into a {@link PersistentRecord} from a single {@code getItemMeta()} call,
+ * and written back with a single meta round trip, instead of cloning the meta for every field.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public final class PersistentSchema {
+
+    private final PersistentField<?, ?>[] fields;
+
+    private PersistentSchema(PersistentField<?, ?>[] fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Creates a schema of the given fields.
+     *
+     * @param fields The fields of the schema.
+     * @return The schema.
+     */
+    public static PersistentSchema of(PersistentField<?, ?>... fields){
+        if (fields == null || fields.length == 0) throw new ItemManagerException("Persistent schema needs at least one field!");
+
+        Set<Object> keys = new HashSet<>();
+        for (PersistentField<?, ?> field : fields) {
+            if (!keys.add(field.getKey())) throw new ItemManagerException("Duplicate persistent field " + field.getKey());
+        }
+        return new PersistentSchema(fields.clone());
+    }
+
+    public List<PersistentField<?, ?>> getFields() {
+        return List.of(fields);
+    }
+
+    /**
+     * Creates a record with the default value of every field.
+     *
+     * @return The new record.
+     */
+    public PersistentRecord newRecord(){
+        Object[] values = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = fields[i].getDefaultValue();
+        }
+        return new PersistentRecord(this, values);
+    }
+
+    /**
+     * Reads all fields of an ItemStack with a single meta clone.
+     *
+     * @param stack The ItemStack.
+     * @return The record, with default values when the stack has no meta.
+     */
+    public PersistentRecord read(ItemStack stack){
+        if (stack == null || !stack.hasItemMeta()) return newRecord();
+        return read(stack.getItemMeta());
+    }
+
+    /**
+     * Reads all fields of an ItemMeta.
+     *
+     * @param meta The ItemMeta.
+     * @return The record.
+     */
+    public PersistentRecord read(ItemMeta meta){
+        if (meta == null) return newRecord();
+
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        Object[] values = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = get(container, fields[i]);
+        }
+        return new PersistentRecord(this, values);
+    }
+
+    /**
+     * Writes the changed fields of a record to an ItemStack in a single meta round trip.
+     *
+     * @param stack The ItemStack.
+     * @param record The record to write.
+     */
+    public void write(ItemStack stack, PersistentRecord record){
+        if (stack == null || !record.hasChanges()) return;
+
+        ItemMeta meta = stack.getItemMeta();
+        if (meta == null) return;
+
+        write(meta, record);
+        stack.setItemMeta(meta);
+    }
+
+    /**
+     * Writes the changed fields of a record to an ItemMeta.
+     *
+     * @param meta The ItemMeta.
+     * @param record The record to write.
+     */
+    public void write(ItemMeta meta, PersistentRecord record){
+        if (record.getSchema() != this) throw new ItemManagerException("Record belongs to another schema!");
+
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        for (int i = 0; i < fields.length; i++) {
+            if (record.isChanged(i)) set(container, fields[i], record.value(i));
+        }
+        record.markWritten();
+    }
+
+    /**
+     * Reads, edits and writes back the fields of an ItemStack with one meta clone and one meta write.
+     *
+     * @param stack The ItemStack.
+     * @param editor The edits to apply to the record.
+     */
+    public void edit(ItemStack stack, Consumer<PersistentRecord> editor){
+        if (stack == null) return;
+
+        ItemMeta meta = stack.getItemMeta();
+        if (meta == null) return;
+
+        PersistentRecord record = read(meta);
+        editor.accept(record);
+        if (!record.hasChanges()) return;
+
+        write(meta, record);
+        stack.setItemMeta(meta);
+    }
+
+    int indexOf(PersistentField<?, ?> field) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i] == field) return i;
+        }
+        throw new ItemManagerException("Field " + field.getKey() + " is not part of this schema!");
+    }
+
+    int size() {
+        return fields.length;
+    }
+
+    PersistentField<?, ?> field(int index) {
+        return fields[index];
+    }
+
+    private static <P, C> C get(PersistentDataContainer container, PersistentField<P, C> field) {
+        C value = container.get(field.getKey(), field.getDataType());
+        return value != null ? value : field.getDefaultValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <P, C> void set(PersistentDataContainer container, PersistentField<P, C> field, Object value) {
+        if (value == null) {
+            container.remove(field.getKey());
+        } else {
+            container.set(field.getKey(), field.getDataType(), (C) value);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package nl.bryansuk.foundationapi;
+
+import nl.bryansuk.foundationapi.exceptions.ItemManagerException;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Snapshot of the registered CustomItems of a plugin, every item key with its compact id and a hash of its
+ * definition.
+ * <p>
+ * Servers of a network share the manifest so every server assigns the same ids, and the checksum over all
+ * entries tells in one comparison whether two servers agree. The file is plain text, one entry per line.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public final class RegistryManifest {
+
+    private static final String HEADER = "# ItemManager registry manifest";
+
+    private final Map<String, Entry> entries;
+    private final String checksum;
+
+    private RegistryManifest(Collection<Entry> entries) {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingInt(Entry::id));
+
+        Map<String, Entry> byKey = new LinkedHashMap<>();
+        StringBuilder lines = new StringBuilder();
+        for (Entry entry : sorted) {
+            if (byKey.put(entry.key, entry) != null) throw new ItemManagerException("Duplicate key in manifest: " + entry.key);
+            lines.append(entry.line()).append('\n');
+        }
+        this.entries = Collections.unmodifiableMap(byKey);
+        this.checksum = hash(lines.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates the manifest of registered CustomItems.
+     *
+     * @param items The registered items.
+     * @return The manifest.
+     */
+    public static RegistryManifest of(Collection<CustomItem> items){
+        List<Entry> entries = new ArrayList<>();
+        for (CustomItem item : items) {
+            entries.add(new Entry(item.getKey(), item.getId(), definitionHash(item)));
+        }
+        return new RegistryManifest(entries);
+    }
+
+    /**
+     * Reads a manifest file.
+     *
+     * @param file The manifest file.
+     * @return The manifest.
+     * @throws IOException When the file cannot be read.
+     */
+    public static RegistryManifest read(Path file) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        String checksum = null;
+
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.startsWith("# checksum ")) checksum = line.substring("# checksum ".length()).strip();
+            if (line.isBlank() || line.startsWith("#")) continue;
+
+            String[] parts = line.strip().split(" ");
+            if (parts.length != 3) throw new IOException("Malformed manifest line in " + file + ": " + line);
+            try {
+                entries.add(new Entry(parts[1], Integer.parseInt(parts[0]), parts[2]));
+            } catch (NumberFormatException e) {
+                throw new IOException("Malformed manifest id in " + file + ": " + line, e);
+            }
+        }
+
+        RegistryManifest manifest = new RegistryManifest(entries);
+        if (checksum != null && !checksum.equals(manifest.checksum)) {
+            throw new IOException("Checksum of " + file + " does not match its entries, the file was edited or damaged");
+        }
+        return manifest;
+    }
+
+    /**
+     * Writes the manifest to a temporary file first and moves it over the old file.
+     *
+     * @param file The manifest file.
+     * @throws IOException When the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        StringBuilder out = new StringBuilder(HEADER).append('\n');
+        out.append("# checksum ").append(checksum).append('\n');
+        for (Entry entry : entries.values()) {
+            out.append(entry.line()).append('\n');
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, out, StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    public @Nullable Entry getEntry(String key){
+        return entries.get(key);
+    }
+
+    /**
+     * Retrieves the highest id in the manifest.
+     *
+     * @return The highest id, or -1 if the manifest is empty.
+     */
+    public int getMaxId(){
+        int max = -1;
+        for (Entry entry : entries.values()) {
+            max = Math.max(max, entry.id);
+        }
+        return max;
+    }
+
+    /**
+     * Lists the entries that conflict with another manifest: a key with another id, an id taken by another
+     * key, or a key whose definition hash differs. Items that only one side knows are no conflict.
+     *
+     * @param other The other manifest.
+     * @return A description of every conflict, empty if the manifests agree.
+     */
+    public List<String> conflicts(RegistryManifest other){
+        return conflicts(other, true);
+    }
+
+    /**
+     * Lists the entries whose ids conflict with another manifest, like {@link #conflicts(RegistryManifest)}
+     * but without comparing definitions. Used when a server publishes changed definitions on purpose.
+     *
+     * @param other The other manifest.
+     * @return A description of every id conflict, empty if the ids agree.
+     */
+    public List<String> idConflicts(RegistryManifest other){
+        return conflicts(other, false);
+    }
+
+    private List<String> conflicts(RegistryManifest other, boolean definitions) {
+        if (checksum.equals(other.checksum)) return List.of();
+
+        List<String> conflicts = new ArrayList<>();
+        Map<Integer, String> ids = new HashMap<>();
+        for (Entry entry : entries.values()) {
+            ids.put(entry.id, entry.key);
+        }
+
+        for (Entry theirs : other.entries.values()) {
+            Entry ours = entries.get(theirs.key);
+            if (ours == null) {
+                String owner = ids.get(theirs.id);
+                if (owner != null) conflicts.add("id " + theirs.id + " is " + owner + " here but " + theirs.key + " there");
+                continue;
+            }
+            if (ours.id != theirs.id) conflicts.add(theirs.key + " has id " + ours.id + " here but " + theirs.id + " there");
+            if (definitions && !ours.hash.equals(theirs.hash)) conflicts.add(theirs.key + " has a different definition");
+        }
+        return conflicts;
+    }
+
+    /**
+     * Combines two manifests that do not conflict, entries of this manifest win. Only a manifest that is
+     * published on purpose replaces definition hashes this way, see {@link ItemManager#publishManifest()}.
+     *
+     * @param other The other manifest.
+     * @return The combined manifest.
+     */
+    public RegistryManifest merge(RegistryManifest other){
+        Map<String, Entry> merged = new LinkedHashMap<>(other.entries);
+        merged.putAll(entries);
+        return new RegistryManifest(merged.values());
+    }
+
+    /**
+     * Hashes what a CustomItem looks like when created, its template stack and its data version.
+     */
+    static String definitionHash(CustomItem item) {
+        byte[] template = item.getCustomItem().serializeAsBytes();
+        byte[] bytes = Arrays.copyOf(template, template.length + 4);
+        int version = item.getVersion();
+        for (int i = 0; i < 4; i++) {
+            bytes[template.length + i] = (byte) (version >>> (24 - i * 8));
+        }
+        return hash(bytes).substring(0, 16);
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new ItemManagerException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * One registered item.
+     *
+     * @param key The item as {@code namespace:ItemName}.
+     * @param id The compact id.
+     * @param hash The hash of the definition.
+     */
+    public record Entry(String key, int id, String hash) {
+
+        private String line() {
+            return id + " " + key + " " + hash;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package nl.bryansuk.foundationapi;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.inventory.PrepareItemCraftEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.RegisteredListener;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Item event dispatcher shared by every plugin that shades this library, published through the
+ * ServicesManager by the first ItemManager that starts.
+ * <p>
+ * Every plugin loads its own copy of the library, so other copies can only talk to the dispatcher through
+ * JDK and Bukkit types. A plugin joins by calling {@link #accept(String, BiConsumer)} with its namespace and
+ * a route. Only the owning ItemManager listens to item events. While one of its handlers runs, stacks that
+ * carry the {@code custom_item} key of another namespace are collected, and afterwards the event is handed
+ * to the route of that namespace together with the item names that were already read. Every event is routed
+to a namespace once, the route runs every handler of the namespace that applies to the event.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public final class SharedDispatcher implements BiConsumer<String, BiConsumer<Event, Map<ItemStack, String>>> {
+
+    /**
+     * Events that are routed to every namespace, because their handler can act before any stack is resolved.
+     */
+    private static final Set<Class<? extends Event>> BROADCAST = Set.of(PrepareItemCraftEvent.class);
+
+    private final Map<String, BiConsumer<Event, Map<ItemStack, String>>> routes = new LinkedHashMap<>();
+    private final Map<String, NamespacedKey> keys = new LinkedHashMap<>();
+    // Namespaces every event was routed to, an event reaches several handlers when one of them is
+    // registered for a superclass, but the route of a namespace fires all of its handlers at once
+    private final Map<Event, Set<String>> routed = new WeakHashMap<>();
+    private Map<String, Map<ItemStack, String>> hits;
+    private int depth;
+
+    SharedDispatcher() {
+    }
+
+    /**
+     * Registers the route of a namespace, or removes it when the route is null.
+     *
+     * @param namespace The namespace of the plugin.
+     * @param route Receives the events with stacks of the namespace and their item names.
+     */
+    @Override
+    public void accept(String namespace, BiConsumer<Event, Map<ItemStack, String>> route) {
+        if (route == null) {
+            routes.remove(namespace);
+            keys.remove(namespace);
+            return;
+        }
+        routes.put(namespace, route);
+        keys.put(namespace, new NamespacedKey(namespace, "custom_item"));
+    }
+
+    public Set<String> getNamespaces() {
+        return Collections.unmodifiableSet(routes.keySet());
+    }
+
+    /**
+     * Runs a handler of the owning ItemManager and routes the event to the namespaces it found afterwards.
+     */
+    void dispatch(RegisteredListener listener, Event event) throws EventException {
+        Map<String, Map<ItemStack, String>> outer = hits;
+        hits = null;
+        depth++;
+        try {
+            listener.callEvent(event);
+        } finally {
+            depth--;
+            Map<String, Map<ItemStack, String>> found = hits;
+            hits = outer;
+            route(event, found);
+        }
+    }
+
+    /**
+     * Collects a stack that did not resolve to an item of the owner, called while a handler runs.
+     */
+    void collect(ItemStack stack, ItemMeta meta) {
+        if (depth == 0 || routes.isEmpty()) return;
+
+        PersistentDataContainer container = meta.getPersistentDataContainer();
+        for (Map.Entry<String, NamespacedKey> entry : keys.entrySet()) {
+            String name = container.get(entry.getValue(), PersistentDataType.STRING);
+            if (name == null) continue;
+
+            if (hits == null) hits = new HashMap<>();
+            hits.computeIfAbsent(entry.getKey(), namespace -> new IdentityHashMap<>()).put(stack, name);
+            return;
+        }
+    }
+
+    private void route(Event event, Map<String, Map<ItemStack, String>> found) {
+        if (routes.isEmpty()) return;
+
+        if (BROADCAST.contains(event.getClass())) {
+            for (Map.Entry<String, BiConsumer<Event, Map<ItemStack, String>>> entry : List.copyOf(routes.entrySet())) {
+                if (!markRouted(event, entry.getKey())) continue;
+
+                Map<ItemStack, String> names = found == null ? null : found.get(entry.getKey());
+                entry.getValue().accept(event, names == null ? Map.of() : names);
+            }
+            return;
+        }
+
+        if (found == null) return;
+        for (Map.Entry<String, Map<ItemStack, String>> entry : found.entrySet()) {
+            BiConsumer<Event, Map<ItemStack, String>> route = routes.get(entry.getKey());
+            if (route != null && markRouted(event, entry.getKey())) route.accept(event, entry.getValue());
+        }
+    }
+
+    /**
+     * Remembers that an event was routed to a namespace.
+     *
+     * @return False when the event was already routed to the namespace by another handler.
+     */
+    private boolean markRouted(Event event, String namespace) {
+        return routed.computeIfAbsent(event, key -> new HashSet<>(2)).add(namespace);
+    }
+}
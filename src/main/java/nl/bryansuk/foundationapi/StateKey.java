@@ -0,0 +1,93 @@
+package nl.bryansuk.foundationapi;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Typed key of a value in the {@link InstanceStateStore}.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ *
+ * @param name The name of the value, unique per item.
+ * @param encoder Turns a value into bytes.
+ * @param decoder Turns bytes back into a value.
+ * @param <T> The type of the value.
+ */
+public record StateKey<T>(String name, Function<T, byte[]> encoder, Function<byte[], T> decoder) {
+
+    public static StateKey<Integer> ofInt(String name){
+        return new StateKey<>(name,
+                value -> ByteBuffer.allocate(4).putInt(value).array(),
+                bytes -> ByteBuffer.wrap(bytes).getInt());
+    }
+
+    public static StateKey<Long> ofLong(String name){
+        return new StateKey<>(name,
+                value -> ByteBuffer.allocate(8).putLong(value).array(),
+                bytes -> ByteBuffer.wrap(bytes).getLong());
+    }
+
+    public static StateKey<String> ofString(String name){
+        return new StateKey<>(name,
+                value -> value.getBytes(StandardCharsets.UTF_8),
+                bytes -> new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    public static StateKey<UUID> ofUuid(String name){
+        return new StateKey<>(name,
+                value -> ByteBuffer.allocate(16).putLong(value.getMostSignificantBits()).putLong(value.getLeastSignificantBits()).array(),
+                bytes -> {
+                    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                    return new UUID(buffer.getLong(), buffer.getLong());
+                });
+    }
+
+    /**
+     * Creates a key for a list of strings, such as a history log.
+     *
+     * @param name The name of the value.
+     * @return The key.
+     */
+    public static StateKey<List<String>> ofStringList(String name){
+        return new StateKey<>(name, StateKey::encodeStrings, StateKey::decodeStrings);
+    }
+
+    byte[] encode(T value) {
+        return encoder.apply(value);
+    }
+
+    T decode(byte[] bytes) {
+        return decoder.apply(bytes);
+    }
+
+    private static byte[] encodeStrings(List<String> values) {
+        List<byte[]> encoded = new ArrayList<>(values.size());
+        int size = 4;
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            size += 4 + bytes.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).putInt(encoded.size());
+        for (byte[] bytes : encoded) {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+        return buffer.array();
+    }
+
+    private static List<String> decodeStrings(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int count = buffer.getInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] value = new byte[buffer.getInt()];
+            buffer.get(value);
+            values.add(new String(value, StandardCharsets.UTF_8));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,67 @@
+package nl.bryansuk.foundationapi.loot;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Walker's alias method, samples an index by weight in constant time.
+ * Built with Vose's algorithm in linear time.
+ */
+final class AliasTable {
+
+    private final double[] probability;
+    private final int[] alias;
+
+    AliasTable(double[] weights) {
+        int size = weights.length;
+        probability = new double[size];
+        alias = new int[size];
+
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+
+        // Whatever is left is 1 up to rounding errors
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1.0;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1.0;
+        }
+    }
+
+    int sample(RandomGenerator random) {
+        int index = random.nextInt(probability.length);
+        return random.nextDouble() < probability[index] ? index : alias[index];
+    }
+}
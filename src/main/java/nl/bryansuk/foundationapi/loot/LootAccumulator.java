@@ -0,0 +1,64 @@
+package nl.bryansuk.foundationapi.loot;
+
+import nl.bryansuk.foundationapi.CustomItem;
+import org.bukkit.inventory.ItemStack;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Adds up rolled amounts per template, templates are compared by identity. Templates of a CustomItem are
+ * drained through {@link CustomItem#createItem(int)}, other templates are copied.
+ */
+final class LootAccumulator {
+
+    private ItemStack[] templates = new ItemStack[8];
+    private CustomItem[] items = new CustomItem[8];
+    private int[] amounts = new int[8];
+    private int size;
+
+    void add(ItemStack template, @Nullable CustomItem item, int amount) {
+        if (amount <= 0) return;
+
+        for (int i = 0; i < size; i++) {
+            if (templates[i] == template) {
+                amounts[i] += amount;
+                return;
+            }
+        }
+
+        if (size == templates.length) {
+            templates = Arrays.copyOf(templates, size * 2);
+            items = Arrays.copyOf(items, size * 2);
+            amounts = Arrays.copyOf(amounts, size * 2);
+        }
+        templates[size] = template;
+        items[size] = item;
+        amounts[size] = amount;
+        size++;
+    }
+
+    void drain(Collection<? super ItemStack> output) {
+        for (int i = 0; i < size; i++) {
+            ItemStack template = templates[i];
+            CustomItem item = items[i];
+            // Every tracked item gets its own instance UUID, so it is created one at a time
+            int maxStackSize = item != null && item.isTracked() ? 1 : Math.max(1, template.getMaxStackSize());
+            int remaining = amounts[i];
+
+            while (remaining > 0) {
+                int amount = Math.min(remaining, maxStackSize);
+                if (item != null) {
+                    output.add(item.createItem(amount));
+                } else {
+                    ItemStack stack = template.clone();
+                    stack.setAmount(amount);
+                    output.add(stack);
+                }
+                remaining -= amount;
+            }
+        }
+        size = 0;
+    }
+}
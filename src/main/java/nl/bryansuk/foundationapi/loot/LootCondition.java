@@ -0,0 +1,18 @@
+package nl.bryansuk.foundationapi.loot;
+
+/**
+ * Condition that decides whether a loot table or entry applies to a roll.
+ */
+@FunctionalInterface
+public interface LootCondition {
+
+    boolean test(LootContext context);
+
+    default LootCondition and(LootCondition other) {
+        return context -> test(context) && other.test(context);
+    }
+
+    default LootCondition negate() {
+        return context -> !test(context);
+    }
+}
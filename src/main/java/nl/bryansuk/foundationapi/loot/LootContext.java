@@ -0,0 +1,132 @@
+package nl.bryansuk.foundationapi.loot;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * The circumstances of a loot roll, evaluated by {@link LootCondition}s.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public final class LootContext {
+
+    private final @Nullable Player player;
+    private final @Nullable Entity source;
+    private final @Nullable Location location;
+    private final double luck;
+    private final Map<String, Object> attributes;
+    private final @Nullable RandomGenerator random;
+
+    private LootContext(Builder builder) {
+        this.player = builder.player;
+        this.source = builder.source;
+        this.location = builder.location;
+        this.luck = builder.luck;
+        this.attributes = new HashMap<>(builder.attributes);
+        this.random = builder.random;
+    }
+
+    public static Builder builder(){
+        return new Builder();
+    }
+
+    public @Nullable Player getPlayer() {
+        return player;
+    }
+
+    public @Nullable Entity getSource() {
+        return source;
+    }
+
+    public @Nullable Location getLocation() {
+        return location;
+    }
+
+    public double getLuck() {
+        return luck;
+    }
+
+    public @Nullable Object getAttribute(String key) {
+        return attributes.get(key);
+    }
+
+    public boolean hasAttribute(String key) {
+        return attributes.containsKey(key);
+    }
+
+    /**
+     * Retrieves the random source of this roll, the thread local random if none was given.
+     *
+     * @return The random source.
+     */
+    public RandomGenerator getRandom() {
+        return random != null ? random : ThreadLocalRandom.current();
+    }
+
+    public static final class Builder {
+        private Player player;
+        private Entity source;
+        private Location location;
+        private double luck;
+        private final Map<String, Object> attributes = new HashMap<>();
+        private RandomGenerator random;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the player the loot is rolled for, also used as location when none is set.
+         *
+         * @param player The player.
+         * @return The Builder instance.
+         */
+        public Builder player(Player player){
+            this.player = player;
+            if (location == null && player != null) location = player.getLocation();
+            return this;
+        }
+
+        /**
+         * Sets the entity the loot comes from, like a killed mob.
+         *
+         * @param source The source entity.
+         * @return The Builder instance.
+         */
+        public Builder source(Entity source){
+            this.source = source;
+            return this;
+        }
+
+        public Builder location(Location location){
+            this.location = location;
+            return this;
+        }
+
+        public Builder luck(double luck){
+            this.luck = luck;
+            return this;
+        }
+
+        public Builder attribute(String key, Object value){
+            if (key == null) return this;
+            attributes.put(key, value);
+            return this;
+        }
+
+        public Builder random(RandomGenerator random){
+            this.random = random;
+            return this;
+        }
+
+        public LootContext build(){
+            return new LootContext(this);
+        }
+    }
+}
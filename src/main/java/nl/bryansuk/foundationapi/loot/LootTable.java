@@ -0,0 +1,270 @@
+package nl.bryansuk.foundationapi.loot;
+
+import nl.bryansuk.foundationapi.CustomItem;
+import nl.bryansuk.foundationapi.exceptions.ItemManagerException;
+import org.bukkit.inventory.ItemStack;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Weighted loot table over registered CustomItems, vanilla stacks and nested tables.
+ * <p>
+ * Entries are sampled in constant time through an alias table that is built once. Rolls first add up
+ * amounts per entry and only make the stacks at the end, so rolling many times at once produces merged
+ * stacks. Stacks of a CustomItem are made through {@link CustomItem#createItem(int)}, so they are counted
+ * and stamped like any created item. Vanilla stacks are cloned when the table is built and copied from
+ * that template.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public final class LootTable {
+
+    private final Entry[] entries;
+    private final AliasTable aliasTable;
+    private final int minRolls;
+    private final int maxRolls;
+    private final @Nullable LootCondition condition;
+
+    private LootTable(Builder builder) {
+        this.entries = builder.entries.toArray(new Entry[0]);
+        this.minRolls = builder.minRolls;
+        this.maxRolls = builder.maxRolls;
+        this.condition = builder.condition;
+
+        double[] weights = new double[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            weights[i] = entries[i].weight;
+        }
+        this.aliasTable = new AliasTable(weights);
+    }
+
+    public static Builder builder(){
+        return new Builder();
+    }
+
+    /**
+     * Rolls the table once.
+     *
+     * @param context The context of the roll.
+     * @return The rolled ItemStacks.
+     */
+    public List<ItemStack> roll(LootContext context){
+        List<ItemStack> output = new ArrayList<>();
+        roll(context, 1, output);
+        return output;
+    }
+
+    /**
+     * Rolls the table once into an existing collection.
+     *
+     * @param context The context of the roll.
+     * @param output The collection to add the rolled ItemStacks to.
+     */
+    public void roll(LootContext context, Collection<? super ItemStack> output){
+        roll(context, 1, output);
+    }
+
+    /**
+     * Rolls the table several times, equal items of all rolls are merged into full stacks.
+     *
+     * @param context The context of the rolls.
+     * @param times The amount of times to roll.
+     * @param output The collection to add the rolled ItemStacks to.
+     */
+    public void roll(LootContext context, int times, Collection<? super ItemStack> output){
+        LootAccumulator accumulator = new LootAccumulator();
+        for (int i = 0; i < times; i++) {
+            sample(context, accumulator);
+        }
+        accumulator.drain(output);
+    }
+
+    private void sample(LootContext context, LootAccumulator accumulator) {
+        if (condition != null && !condition.test(context)) return;
+
+        RandomGenerator random = context.getRandom();
+        int rolls = between(random, minRolls, maxRolls);
+        for (int i = 0; i < rolls; i++) {
+            entries[aliasTable.sample(random)].apply(context, random, accumulator);
+        }
+    }
+
+    private static int between(RandomGenerator random, int min, int max) {
+        return min == max ? min : random.nextInt(min, max + 1);
+    }
+
+    private static final class Entry {
+        private final double weight;
+        private final @Nullable ItemStack template;
+        private final @Nullable CustomItem item;
+        private final @Nullable LootTable table;
+        private final int minAmount;
+        private final int maxAmount;
+        private final @Nullable LootCondition condition;
+
+        private Entry(double weight, @Nullable ItemStack template, @Nullable CustomItem item, @Nullable LootTable table, int minAmount, int maxAmount, @Nullable LootCondition condition) {
+            this.weight = weight;
+            this.template = template;
+            this.item = item;
+            this.table = table;
+            this.minAmount = minAmount;
+            this.maxAmount = maxAmount;
+            this.condition = condition;
+        }
+
+        private void apply(LootContext context, RandomGenerator random, LootAccumulator accumulator) {
+            // A failed condition turns the roll into an empty roll, the weights stay fixed
+            if (condition != null && !condition.test(context)) return;
+
+            if (template != null) {
+                accumulator.add(template, item, between(random, minAmount, maxAmount));
+            } else if (table != null) {
+                table.sample(context, accumulator);
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final List<Entry> entries = new ArrayList<>();
+        private int minRolls = 1;
+        private int maxRolls = 1;
+        private LootCondition condition;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets a fixed amount of rolls.
+         *
+         * @param rolls The amount of rolls.
+         * @return The Builder instance.
+         */
+        public Builder rolls(int rolls){
+            return rolls(rolls, rolls);
+        }
+
+        /**
+         * Sets a range of rolls, picked uniformly on every roll of the table.
+         *
+         * @param min The minimum amount of rolls.
+         * @param max The maximum amount of rolls.
+         * @return The Builder instance.
+         */
+        public Builder rolls(int min, int max){
+            if (min < 0 || max < min) throw new ItemManagerException("Invalid roll range " + min + " - " + max);
+            this.minRolls = min;
+            this.maxRolls = max;
+            return this;
+        }
+
+        /**
+         * Sets the condition the whole table depends on.
+         *
+         * @param condition The condition.
+         * @return The Builder instance.
+         */
+        public Builder when(LootCondition condition){
+            this.condition = condition;
+            return this;
+        }
+
+        public Builder add(CustomItem item, double weight){
+            return add(item, weight, 1, 1, null);
+        }
+
+        public Builder add(CustomItem item, double weight, int minAmount, int maxAmount){
+            return add(item, weight, minAmount, maxAmount, null);
+        }
+
+        /**
+         * Adds a registered CustomItem.
+         *
+         * @param item The CustomItem.
+         * @param weight The weight of the entry.
+         * @param minAmount The minimum amount per roll.
+         * @param maxAmount The maximum amount per roll.
+         * @param condition The condition of the entry, or null.
+         * @return The Builder instance.
+         */
+        public Builder add(CustomItem item, double weight, int minAmount, int maxAmount, @Nullable LootCondition condition){
+            if (item == null) throw new ItemManagerException("Loot entry item cannot be null!");
+            if (item.getId() < 0) throw new ItemManagerException(item.getClass().getSimpleName() + " is not registered!");
+            checkAmounts(minAmount, maxAmount);
+
+            // Rolled stacks of a CustomItem are made through createItem, so they are stamped and counted
+            entries.add(new Entry(checkWeight(weight), item.getCustomItem(), item, null, minAmount, maxAmount, condition));
+            return this;
+        }
+
+        public Builder add(ItemStack stack, double weight, int minAmount, int maxAmount){
+            return add(stack, weight, minAmount, maxAmount, null);
+        }
+
+        /**
+         * Adds an ItemStack, the stack is copied as template so later changes do not affect the table.
+         *
+         * @param stack The ItemStack.
+         * @param weight The weight of the entry.
+         * @param minAmount The minimum amount per roll.
+         * @param maxAmount The maximum amount per roll.
+         * @param condition The condition of the entry, or null.
+         * @return The Builder instance.
+         */
+        public Builder add(ItemStack stack, double weight, int minAmount, int maxAmount, @Nullable LootCondition condition){
+            if (stack == null || stack.getType().isAir()) throw new ItemManagerException("Loot entry item cannot be empty!");
+            checkAmounts(minAmount, maxAmount);
+
+            ItemStack template = stack.clone();
+            template.setAmount(1);
+            entries.add(new Entry(checkWeight(weight), template, null, null, minAmount, maxAmount, condition));
+            return this;
+        }
+
+        public Builder add(LootTable table, double weight){
+            return add(table, weight, null);
+        }
+
+        /**
+         * Adds a nested table, rolled with its own rolls whenever this entry is picked.
+         *
+         * @param table The nested table.
+         * @param weight The weight of the entry.
+         * @param condition The condition of the entry, or null.
+         * @return The Builder instance.
+         */
+        public Builder add(LootTable table, double weight, @Nullable LootCondition condition){
+            if (table == null) throw new ItemManagerException("Nested loot table cannot be null!");
+            entries.add(new Entry(checkWeight(weight), null, null, table, 0, 0, condition));
+            return this;
+        }
+
+        /**
+         * Adds an entry that drops nothing.
+         *
+         * @param weight The weight of the entry.
+         * @return The Builder instance.
+         */
+        public Builder addEmpty(double weight){
+            entries.add(new Entry(checkWeight(weight), null, null, null, 0, 0, null));
+            return this;
+        }
+
+        public LootTable build(){
+            if (entries.isEmpty()) throw new ItemManagerException("Loot table has no entries!");
+            return new LootTable(this);
+        }
+
+        private static void checkAmounts(int minAmount, int maxAmount) {
+            if (minAmount < 0 || maxAmount < minAmount) throw new ItemManagerException("Invalid amount range " + minAmount + " - " + maxAmount);
+        }
+
+        private static double checkWeight(double weight) {
+            if (!(weight > 0) || Double.isInfinite(weight)) throw new ItemManagerException("Invalid loot weight " + weight);
+            return weight;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package nl.bryansuk.foundationapi.offline;
+
+/**
+ * Finds item stacks that carry a {@code custom_item} key in their PublicBukkitValues.
+ * <p>
+ * Since 1.20.5 the values live in {@code components -> minecraft:custom_data -> PublicBukkitValues}, before
+ * that in {@code tag -> PublicBukkitValues}. A stack is reported when its compound ends, because its count
+ * can be stored after its data. Nested stacks such as the contents of a shulker box are found as well.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public final class CustomItemFinder implements NbtVisitor {
+
+    private static final int MAX_DEPTH = 512;
+    private static final String KEY_SUFFIX = ":custom_item";
+
+    private final String namespace;
+    private final Sink sink;
+    private final String[] names = new String[MAX_DEPTH + 1];
+    private final int[] counts = new int[MAX_DEPTH + 1];
+    private final String[] hits = new String[MAX_DEPTH + 1];
+    private int depth;
+
+    /**
+     * Creates a finder.
+     *
+     * @param namespace The plugin namespace to look for, or null for every namespace.
+     * @param sink Receives every stack that was found.
+     */
+    public CustomItemFinder(String namespace, Sink sink) {
+        this.namespace = namespace;
+        this.sink = sink;
+    }
+
+    @Override
+    public void startCompound(String name) {
+        if (++depth > MAX_DEPTH) throw new IllegalArgumentException("NBT is nested deeper than " + MAX_DEPTH);
+        names[depth] = name;
+        counts[depth] = 1;
+        hits[depth] = null;
+    }
+
+    @Override
+    public void endCompound() {
+        if (hits[depth] != null) sink.found(hits[depth], counts[depth]);
+        depth--;
+    }
+
+    @Override
+    public void intValue(String name, int value) {
+        if ("count".equals(name) || "Count".equals(name)) counts[depth] = value;
+    }
+
+    @Override
+    public boolean acceptString(String name) {
+        if (name == null || !name.endsWith(KEY_SUFFIX) || !"PublicBukkitValues".equals(names[depth])) return false;
+        return namespace == null || name.length() == namespace.length() + KEY_SUFFIX.length() && name.startsWith(namespace);
+    }
+
+    @Override
+    public void stringValue(String name, String value) {
+        String parent = names[depth - 1];
+        int item;
+        if ("minecraft:custom_data".equals(parent)) {
+            item = depth - 3;
+        } else if ("tag".equals(parent)) {
+            item = depth - 2;
+        } else {
+            return;
+        }
+        if (item < 1) return;
+
+        hits[item] = name.substring(0, name.length() - KEY_SUFFIX.length()) + ":" + value;
+    }
+
+    /**
+     * Receives the stacks found by a {@link CustomItemFinder}.
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * Called for every stack of a custom item.
+         *
+         * @param item The item as {@code namespace:ItemName}.
+         * @param amount The amount in the stack.
+         */
+        void found(String item, int amount);
+    }
+}
@@ -0,0 +1,44 @@
+package nl.bryansuk.foundationapi.offline;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Splits a list of files over a fork join pool and merges the result of every file.
+ *
+ * @param <R> The result type.
+ */
+final class FileTask<R> extends RecursiveTask<R> {
+
+    private final List<Path> files;
+    private final int from;
+    private final int to;
+    private final Function<Path, R> work;
+    private final BinaryOperator<R> merge;
+
+    FileTask(List<Path> files, Function<Path, R> work, BinaryOperator<R> merge) {
+        this(files, 0, files.size(), work, merge);
+    }
+
+    private FileTask(List<Path> files, int from, int to, Function<Path, R> work, BinaryOperator<R> merge) {
+        this.files = files;
+        this.from = from;
+        this.to = to;
+        this.work = work;
+        this.merge = merge;
+    }
+
+    @Override
+    protected R compute() {
+        if (to - from == 1) return work.apply(files.get(from));
+
+        int middle = (from + to) >>> 1;
+        FileTask<R> left = new FileTask<>(files, from, middle, work, merge);
+        left.fork();
+        R right = new FileTask<>(files, middle, to, work, merge).compute();
+        return merge.apply(right, left.join());
+    }
+}
@@ -0,0 +1,112 @@
+package nl.bryansuk.foundationapi.offline;
+
+import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Walks an {@link NbtTree} and applies {@link RewriteRules} to every stack of a CustomItem in it.
+ * <p>
+ * Removed stacks are taken out of their list, except in lists where the index is the slot, such as the
+ * armor and hand items of a mob: there the stack is replaced by an empty compound so the other stacks keep
+ * their slot. A stack stored as the {@code item} of a wrapper, such as a container slot or a dropped item
+ * entity, takes the wrapper with it. Item frames keep their frame.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+final class ItemRewriter {
+
+    private static final int CHANGED = 1;
+    private static final int REMOVE = 2;
+    private static final String KEY_SUFFIX = ":custom_item";
+    private static final Set<String> POSITIONAL_LISTS = Set.of("ArmorItems", "HandItems");
+
+    private final RewriteRules rules;
+    private final RewriteStats stats;
+
+    ItemRewriter(RewriteRules rules, RewriteStats stats) {
+        this.rules = rules;
+        this.stats = stats;
+    }
+
+    /**
+     * Rewrites a document in place.
+     *
+     * @return True if anything changed.
+     */
+    boolean rewrite(NbtCompound root) {
+        return (visitCompound(root) & CHANGED) != 0;
+    }
+
+    private int visitCompound(NbtCompound compound) {
+        int result = 0;
+
+        NbtCompound values = bukkitValues(compound);
+        if (values != null) {
+            String key = customItemKey(values);
+            if (key != null) {
+                long changes = stats.renamed + stats.keysChanged;
+                if (!rules.apply(values, key, stats)) return REMOVE | CHANGED;
+                if (stats.renamed + stats.keysChanged != changes) result |= CHANGED;
+            }
+        }
+
+        Iterator<Map.Entry<String, Object>> iterator = compound.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Object> entry = iterator.next();
+            int child = visit(entry.getValue(), POSITIONAL_LISTS.contains(entry.getKey()));
+            result |= child & CHANGED;
+            if ((child & REMOVE) == 0) continue;
+
+            iterator.remove();
+            String name = entry.getKey();
+            if ((name.equals("item") || name.equals("Item")) && isWrapper(compound)) result |= REMOVE;
+        }
+        return result;
+    }
+
+    private int visit(Object value, boolean positional) {
+        if (value instanceof NbtCompound compound) return visitCompound(compound);
+        if (!(value instanceof NbtList list)) return 0;
+        if (list.getType() != NbtReader.COMPOUND && list.getType() != NbtReader.LIST) return 0;
+
+        int result = 0;
+        ListIterator<Object> iterator = list.listIterator();
+        while (iterator.hasNext()) {
+            int child = visit(iterator.next(), false);
+            result |= child & CHANGED;
+            if ((child & REMOVE) == 0) continue;
+
+            if (positional && list.getType() == NbtReader.COMPOUND) {
+                // An empty compound is an empty slot, the stacks after it keep their index
+                iterator.set(new NbtCompound());
+            } else {
+                iterator.remove();
+            }
+        }
+        return result;
+    }
+
+    private static boolean isWrapper(NbtCompound compound) {
+        String id = compound.getString("id");
+        return id == null || id.equals("minecraft:item");
+    }
+
+    static NbtCompound bukkitValues(NbtCompound item) {
+        NbtCompound components = item.getCompound("components");
+        if (components != null) {
+            NbtCompound customData = components.getCompound("minecraft:custom_data");
+            return customData == null ? null : customData.getCompound("PublicBukkitValues");
+        }
+
+        NbtCompound tag = item.getCompound("tag");
+        return tag == null ? null : tag.getCompound("PublicBukkitValues");
+    }
+
+    static String customItemKey(NbtCompound values) {
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            if (entry.getKey().endsWith(KEY_SUFFIX) && entry.getValue() instanceof String) return entry.getKey();
+        }
+        return null;
+    }
+}
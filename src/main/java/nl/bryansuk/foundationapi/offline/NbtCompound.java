@@ -0,0 +1,17 @@
+package nl.bryansuk.foundationapi.offline;
+
+import java.util.LinkedHashMap;
+
+/**
+ * Compound tag of the {@link NbtTree} model, keeps the order in which its tags were read.
+ */
+public final class NbtCompound extends LinkedHashMap<String, Object> {
+
+    public NbtCompound getCompound(String name){
+        return get(name) instanceof NbtCompound compound ? compound : null;
+    }
+
+    public String getString(String name){
+        return get(name) instanceof String string ? string : null;
+    }
+}
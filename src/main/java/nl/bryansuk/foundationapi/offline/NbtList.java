@@ -0,0 +1,20 @@
+package nl.bryansuk.foundationapi.offline;
+
+import java.util.ArrayList;
+
+/**
+ * List tag of the {@link NbtTree} model, remembers its element type so empty lists are written back as read.
+ */
+public final class NbtList extends ArrayList<Object> {
+
+    private final byte type;
+
+    public NbtList(byte type, int capacity) {
+        super(capacity);
+        this.type = type;
+    }
+
+    public byte getType() {
+        return type;
+    }
+}
@@ -0,0 +1,150 @@
+package nl.bryansuk.foundationapi.offline;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming reader for uncompressed NBT, no tree is built while reading.
+ * <p>
+ * Tags are reported to a {@link NbtVisitor}, arrays, numbers that are not needed and strings that the
+ * visitor does not accept are skipped by moving the position of the buffer.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public final class NbtReader {
+
+    public static final byte END = 0;
+    public static final byte BYTE = 1;
+    public static final byte SHORT = 2;
+    public static final byte INT = 3;
+    public static final byte LONG = 4;
+    public static final byte FLOAT = 5;
+    public static final byte DOUBLE = 6;
+    public static final byte BYTE_ARRAY = 7;
+    public static final byte STRING = 8;
+    public static final byte LIST = 9;
+    public static final byte COMPOUND = 10;
+    public static final byte INT_ARRAY = 11;
+    public static final byte LONG_ARRAY = 12;
+
+    private final ByteBuffer buffer;
+    private final NbtVisitor visitor;
+
+    private NbtReader(ByteBuffer buffer, NbtVisitor visitor) {
+        this.buffer = buffer.order(ByteOrder.BIG_ENDIAN);
+        this.visitor = visitor;
+    }
+
+    /**
+     * Reads a named root compound.
+     *
+     * @param buffer The uncompressed NBT, read from its position.
+     * @param visitor The visitor that receives the tags.
+     */
+    public static void read(ByteBuffer buffer, NbtVisitor visitor){
+        NbtReader reader = new NbtReader(buffer, visitor);
+        byte type = buffer.get();
+        if (type != COMPOUND) throw new IllegalArgumentException("Root tag is not a compound but type " + type);
+        reader.readCompound(reader.readString());
+    }
+
+    private void readCompound(String name) {
+        visitor.startCompound(name);
+        byte type;
+        while ((type = buffer.get()) != END) {
+            readPayload(type, readString());
+        }
+        visitor.endCompound();
+    }
+
+    private void readPayload(byte type, String name) {
+        switch (type) {
+            case BYTE -> visitor.intValue(name, buffer.get());
+            case SHORT -> visitor.intValue(name, buffer.getShort());
+            case INT -> visitor.intValue(name, buffer.getInt());
+            case LONG, DOUBLE -> skip(8);
+            case FLOAT -> skip(4);
+            case BYTE_ARRAY -> skip(buffer.getInt());
+            case INT_ARRAY -> skip(buffer.getInt() * 4);
+            case LONG_ARRAY -> skip(buffer.getInt() * 8);
+            case STRING -> {
+                if (visitor.acceptString(name)) {
+                    visitor.stringValue(name, readString());
+                } else {
+                    skip(buffer.getShort() & 0xffff);
+                }
+            }
+            case LIST -> readList();
+            case COMPOUND -> readCompound(name);
+            default -> throw new IllegalArgumentException("Unknown tag type " + type + " at " + (buffer.position() - 1));
+        }
+    }
+
+    private void readList() {
+        byte type = buffer.get();
+        int length = buffer.getInt();
+
+        // Lists of numbers that are never reported are skipped in one go
+        switch (type) {
+            case END -> {
+                return;
+            }
+            case FLOAT -> {
+                skip(length * 4);
+                return;
+            }
+            case LONG, DOUBLE -> {
+                skip(length * 8);
+                return;
+            }
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (type == COMPOUND) {
+                readCompound(null);
+            } else {
+                readPayload(type, null);
+            }
+        }
+    }
+
+    private String readString() {
+        return readString(buffer);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xffff;
+        int start = buffer.position();
+
+        // Nearly every string is ASCII, which is the same in modified UTF-8
+        boolean ascii = true;
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) < 0) {
+                ascii = false;
+                break;
+            }
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        if (ascii) return new String(bytes, StandardCharsets.ISO_8859_1);
+
+        byte[] prefixed = new byte[length + 2];
+        prefixed[0] = (byte) (length >>> 8);
+        prefixed[1] = (byte) length;
+        System.arraycopy(bytes, 0, prefixed, 2, length);
+        try {
+            return new DataInputStream(new ByteArrayInputStream(prefixed)).readUTF();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void skip(int bytes) {
+        buffer.position(buffer.position() + bytes);
+    }
+}
@@ -0,0 +1,176 @@
+package nl.bryansuk.foundationapi.offline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+
+import static nl.bryansuk.foundationapi.offline.NbtReader.*;
+
+/**
+ * Reads NBT into a mutable tree and writes it back.
+ * <p>
+ * Numbers are boxed Java values, arrays are Java arrays, lists and compounds are {@link NbtList} and
+ * {@link NbtCompound}. Only used for documents that have to change, everything else is streamed by
+ * {@link NbtReader}.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public final class NbtTree {
+
+    private NbtTree() {
+    }
+
+    /**
+     * Reads a named root compound.
+     *
+     * @param buffer The uncompressed NBT, read from its position.
+     * @return The root.
+     */
+    public static Root read(ByteBuffer buffer){
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        byte type = buffer.get();
+        if (type != COMPOUND) throw new IllegalArgumentException("Root tag is not a compound but type " + type);
+        String name = NbtReader.readString(buffer);
+        return new Root(name, readCompound(buffer));
+    }
+
+    /**
+     * Writes a root compound as uncompressed NBT.
+     *
+     * @param root The root.
+     * @return The NBT.
+     */
+    public static byte[] write(Root root){
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(COMPOUND);
+            out.writeUTF(root.name());
+            writeCompound(out, root.tag());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static NbtCompound readCompound(ByteBuffer buffer) {
+        NbtCompound compound = new NbtCompound();
+        byte type;
+        while ((type = buffer.get()) != END) {
+            String name = NbtReader.readString(buffer);
+            compound.put(name, readPayload(buffer, type));
+        }
+        return compound;
+    }
+
+    private static Object readPayload(ByteBuffer buffer, byte type) {
+        return switch (type) {
+            case BYTE -> buffer.get();
+            case SHORT -> buffer.getShort();
+            case INT -> buffer.getInt();
+            case LONG -> buffer.getLong();
+            case FLOAT -> buffer.getFloat();
+            case DOUBLE -> buffer.getDouble();
+            case BYTE_ARRAY -> {
+                byte[] array = new byte[buffer.getInt()];
+                buffer.get(array);
+                yield array;
+            }
+            case STRING -> NbtReader.readString(buffer);
+            case LIST -> {
+                byte elementType = buffer.get();
+                int length = buffer.getInt();
+                NbtList list = new NbtList(elementType, length);
+                for (int i = 0; i < length; i++) {
+                    list.add(readPayload(buffer, elementType));
+                }
+                yield list;
+            }
+            case COMPOUND -> readCompound(buffer);
+            case INT_ARRAY -> {
+                int[] array = new int[buffer.getInt()];
+                buffer.asIntBuffer().get(array);
+                buffer.position(buffer.position() + array.length * 4);
+                yield array;
+            }
+            case LONG_ARRAY -> {
+                long[] array = new long[buffer.getInt()];
+                buffer.asLongBuffer().get(array);
+                buffer.position(buffer.position() + array.length * 8);
+                yield array;
+            }
+            default -> throw new IllegalArgumentException("Unknown tag type " + type + " at " + (buffer.position() - 1));
+        };
+    }
+
+    private static void writeCompound(DataOutputStream out, NbtCompound compound) throws IOException {
+        for (Map.Entry<String, Object> entry : compound.entrySet()) {
+            out.writeByte(typeOf(entry.getValue()));
+            out.writeUTF(entry.getKey());
+            writePayload(out, entry.getValue());
+        }
+        out.writeByte(END);
+    }
+
+    private static void writePayload(DataOutputStream out, Object value) throws IOException {
+        switch (value) {
+            case Byte b -> out.writeByte(b);
+            case Short s -> out.writeShort(s);
+            case Integer i -> out.writeInt(i);
+            case Long l -> out.writeLong(l);
+            case Float f -> out.writeFloat(f);
+            case Double d -> out.writeDouble(d);
+            case byte[] array -> {
+                out.writeInt(array.length);
+                out.write(array);
+            }
+            case String string -> out.writeUTF(string);
+            case NbtList list -> {
+                out.writeByte(list.isEmpty() ? list.getType() : typeOf(list.get(0)));
+                out.writeInt(list.size());
+                for (Object element : list) {
+                    writePayload(out, element);
+                }
+            }
+            case NbtCompound compound -> writeCompound(out, compound);
+            case int[] array -> {
+                out.writeInt(array.length);
+                for (int i : array) out.writeInt(i);
+            }
+            case long[] array -> {
+                out.writeInt(array.length);
+                for (long l : array) out.writeLong(l);
+            }
+            default -> throw new IllegalArgumentException("Cannot write " + value.getClass().getSimpleName() + " as NBT");
+        }
+    }
+
+    private static byte typeOf(Object value) {
+        return switch (value) {
+            case Byte b -> BYTE;
+            case Short s -> SHORT;
+            case Integer i -> INT;
+            case Long l -> LONG;
+            case Float f -> FLOAT;
+            case Double d -> DOUBLE;
+            case byte[] array -> BYTE_ARRAY;
+            case String string -> STRING;
+            case NbtList list -> LIST;
+            case NbtCompound compound -> COMPOUND;
+            case int[] array -> INT_ARRAY;
+            case long[] array -> LONG_ARRAY;
+            default -> throw new IllegalArgumentException("Cannot write " + value.getClass().getSimpleName() + " as NBT");
+        };
+    }
+
+    /**
+     * A root compound and its name, which is empty in world files.
+     *
+     * @param name The name of the root.
+     * @param tag The root compound.
+     */
+    public record Root(String name, NbtCompound tag) {
+    }
+}
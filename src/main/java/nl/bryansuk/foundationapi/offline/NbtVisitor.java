@@ -0,0 +1,45 @@
+package nl.bryansuk.foundationapi.offline;
+
+/**
+ * Receives the tags of an NBT document while it is streamed by {@link NbtReader}.
+ * <p>
+ * Only the callbacks needed to locate items exist, every other tag is skipped by the reader.
+ */
+public interface NbtVisitor {
+
+    /**
+     * Called when a compound is entered.
+     *
+     * @param name The name of the compound, null for list elements.
+     */
+    void startCompound(String name);
+
+    /**
+     * Called when the compound that was last entered ends.
+     */
+    void endCompound();
+
+    /**
+     * Called for byte, short and int tags.
+     *
+     * @param name The name of the tag, null for list elements.
+     * @param value The value.
+     */
+    void intValue(String name, int value);
+
+    /**
+     * Decides whether a string tag has to be decoded, strings that are not accepted are skipped.
+     *
+     * @param name The name of the tag, null for list elements.
+     * @return True if {@link #stringValue(String, String)} should be called.
+     */
+    boolean acceptString(String name);
+
+    /**
+     * Called for accepted string tags.
+     *
+     * @param name The name of the tag, null for list elements.
+     * @param value The value.
+     */
+    void stringValue(String name, String value);
+}
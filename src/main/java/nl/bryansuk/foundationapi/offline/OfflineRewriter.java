@@ -0,0 +1,210 @@
+package nl.bryansuk.foundationapi.offline;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Applies {@link RewriteRules} to the player data and region files of worlds while the server is offline.
+ * <p>
+ * Every chunk is first streamed to see whether it holds an item the rules select, only those chunks are
+ * read into a tree and rewritten. Chunks that did not change are copied as stored. The new file is written
+ * next to the old one and moved over it, so a crash never leaves a half written region behind.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public class OfflineRewriter {
+
+    private static final int MAX_SECTORS = 255;
+
+    private final RewriteRules rules;
+    private final boolean dryRun;
+    private final int parallelism;
+
+    /**
+     * Creates a rewriter.
+     *
+     * @param rules The rules to apply.
+     * @param dryRun Whether changes are only counted and not written.
+     * @param parallelism The amount of worker threads.
+     */
+    public OfflineRewriter(RewriteRules rules, boolean dryRun, int parallelism) {
+        this.rules = rules;
+        this.dryRun = dryRun;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Rewrites the given world folders.
+     *
+     * @param worlds The world folders.
+     * @return What was changed.
+     * @throws IOException When a world folder cannot be listed.
+     */
+    public RewriteStats rewrite(List<Path> worlds) throws IOException {
+        List<Path> files = OfflineScanner.collectFiles(worlds);
+        if (files.isEmpty()) return new RewriteStats();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new FileTask<>(files, this::rewriteFile, RewriteStats::merge));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private RewriteStats rewriteFile(Path file) {
+        RewriteStats stats = new RewriteStats();
+        stats.files = 1;
+
+        try {
+            if (OfflineScanner.isPlayerData(file)) {
+                rewritePlayerData(file, stats);
+            } else {
+                rewriteRegion(file, stats);
+            }
+        } catch (IOException | RuntimeException e) {
+            stats.errors.add(file + ": " + e.getMessage());
+        }
+        return stats;
+    }
+
+    private void rewritePlayerData(Path file, RewriteStats stats) throws IOException {
+        ByteBuffer nbt = OfflineScanner.DECOMPRESSORS.get().decompress(ByteBuffer.wrap(Files.readAllBytes(file)), RegionFile.GZIP);
+        byte[] rewritten = rewriteDocument(nbt, stats);
+        if (rewritten == null) return;
+
+        stats.changedFiles++;
+        if (dryRun) return;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rewritten.length / 4);
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(rewritten);
+        }
+        replace(file, bytes.toByteArray());
+    }
+
+    private void rewriteRegion(Path file, RewriteStats stats) throws IOException {
+        byte[][] changed = new byte[RegionFile.CHUNKS][];
+        boolean any = false;
+        Path temp;
+
+        try (RegionFile region = RegionFile.open(file)) {
+            for (int index = 0; index < RegionFile.CHUNKS; index++) {
+                if (!region.hasChunk(index)) continue;
+
+                byte[] rewritten;
+                try {
+                    rewritten = rewriteDocument(region.readChunk(index, OfflineScanner.DECOMPRESSORS.get()), stats);
+                } catch (IOException | RuntimeException e) {
+                    stats.errors.add(file + " [" + region.chunkX(index) + ", " + region.chunkZ(index) + "]: " + e.getMessage());
+                    continue;
+                }
+                if (rewritten == null) continue;
+
+                changed[index] = compress(rewritten);
+                stats.changedChunks++;
+                any = true;
+            }
+
+            if (!any) return;
+            stats.changedFiles++;
+            if (dryRun) return;
+
+            temp = writeRegion(region, changed);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Rewrites one document, or returns null without building a tree when no selected item is in it.
+     */
+    private byte[] rewriteDocument(ByteBuffer nbt, RewriteStats stats) {
+        boolean[] concerned = new boolean[1];
+        NbtReader.read(nbt.duplicate(), new CustomItemFinder(null, (item, amount) -> {
+            if (rules.concerns(item)) concerned[0] = true;
+        }));
+        if (!concerned[0]) return null;
+
+        NbtTree.Root root = NbtTree.read(nbt);
+        return new ItemRewriter(rules, stats).rewrite(root.tag()) ? NbtTree.write(root) : null;
+    }
+
+    private static byte[] compress(byte[] nbt) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(nbt.length / 4);
+        try (OutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(nbt);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Lays out a new region with the changed chunks next to the old one, unchanged chunks are copied as stored.
+     */
+    private static Path writeRegion(RegionFile region, byte[][] changed) throws IOException {
+        Path temp = region.getPath().resolveSibling(region.getPath().getFileName() + ".tmp");
+
+        boolean written = false;
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer locations = ByteBuffer.allocate(RegionFile.SECTOR);
+                out.position(RegionFile.SECTOR * 2L);
+                int sector = 2;
+
+                for (int index = 0; index < RegionFile.CHUNKS; index++) {
+                    if (!region.hasChunk(index)) continue;
+
+                    ByteBuffer chunk;
+                    if (changed[index] == null) {
+                        chunk = region.rawChunk(index);
+                    } else if (region.isExternal(index) || changed[index].length + 5 > MAX_SECTORS * RegionFile.SECTOR) {
+                        // Too large to store inline, the region only keeps a pointer to the external file
+                        byte[] external = changed[index];
+                        replace(region.externalFile(index), external);
+                        chunk = ByteBuffer.allocate(5).putInt(1).put((byte) (RegionFile.ZLIB | RegionFile.EXTERNAL)).flip();
+                    } else {
+                        byte[] data = changed[index];
+                        chunk = ByteBuffer.allocate(data.length + 5).putInt(data.length + 1).put((byte) RegionFile.ZLIB).put(data).flip();
+                    }
+
+                    int sectors = (chunk.remaining() + RegionFile.SECTOR - 1) / RegionFile.SECTOR;
+                    locations.putInt(index * 4, sector << 8 | sectors);
+                    out.write(chunk, (long) sector * RegionFile.SECTOR);
+                    sector += sectors;
+                }
+
+                // Pad the last sector so the file length stays a multiple of the sector size
+                if (out.size() < (long) sector * RegionFile.SECTOR) {
+                    out.write(ByteBuffer.allocate(1), (long) sector * RegionFile.SECTOR - 1);
+                }
+                out.write(locations, 0);
+                out.write(region.timestamps(), RegionFile.SECTOR);
+            }
+            written = true;
+        } finally {
+            // A half written region is never moved over the original, leave nothing behind
+            if (!written) Files.deleteIfExists(temp);
+        }
+        return temp;
+    }
+
+    private static void replace(Path file, byte[] bytes) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, bytes);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
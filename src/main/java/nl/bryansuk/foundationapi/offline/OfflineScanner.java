@@ -0,0 +1,201 @@
+package nl.bryansuk.foundationapi.offline;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Counts the CustomItems stored in the player data and region files of worlds while the server is offline.
+ * <p>
+ * Files are split over a fork join pool. Region files are mapped into memory, every chunk is decompressed
+ * into a buffer that belongs to the worker thread and streamed through a {@link CustomItemFinder}, so no
+ * NBT tree is ever built.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public class OfflineScanner {
+
+    static final ThreadLocal<RegionFile.Decompressor> DECOMPRESSORS = ThreadLocal.withInitial(RegionFile.Decompressor::new);
+
+    private final String namespace;
+    private final boolean collectLocations;
+    private final int parallelism;
+
+    /**
+     * Creates a scanner.
+     *
+     * @param namespace The plugin namespace to look for, or null for every namespace.
+     * @param collectLocations Whether the location of every stack should be kept.
+     * @param parallelism The amount of worker threads.
+     */
+    public OfflineScanner(String namespace, boolean collectLocations, int parallelism) {
+        this.namespace = namespace;
+        this.collectLocations = collectLocations;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Scans the given world folders.
+     *
+     * @param worlds The world folders.
+     * @return The result.
+     * @throws IOException When a world folder cannot be listed.
+     */
+    public Result scan(List<Path> worlds) throws IOException {
+        List<Path> files = collectFiles(worlds);
+        if (files.isEmpty()) return new Result();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new FileTask<>(files, this::scanFile, Result::merge));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Lists the player data and region files of world folders, largest first so the pool stays busy.
+     *
+     * @param worlds The world folders.
+     * @return The files.
+     * @throws IOException When a world folder cannot be listed.
+     */
+    public static List<Path> collectFiles(List<Path> worlds) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path world : worlds) {
+            try (Stream<Path> walk = Files.walk(world)) {
+                walk.filter(Files::isRegularFile).filter(OfflineScanner::isWorldFile).forEach(files::add);
+            }
+        }
+
+        Map<Path, Long> sizes = new HashMap<>();
+        for (Path file : files) {
+            sizes.put(file, Files.size(file));
+        }
+        files.sort(Comparator.comparingLong((Path file) -> sizes.get(file)).reversed());
+        return files;
+    }
+
+    static boolean isWorldFile(Path file) {
+        String name = file.getFileName().toString();
+        Path parent = file.getParent();
+        String folder = parent == null ? "" : parent.getFileName().toString();
+
+        if (name.endsWith(".dat")) return folder.equals("playerdata");
+        if (name.endsWith(".mca")) return folder.equals("region") || folder.equals("entities");
+        return false;
+    }
+
+    static boolean isPlayerData(Path file) {
+        return file.getFileName().toString().endsWith(".dat");
+    }
+
+    private Result scanFile(Path file) {
+        Result result = new Result();
+        result.files = 1;
+
+        try {
+            result.bytes = Files.size(file);
+            if (isPlayerData(file)) {
+                ByteBuffer nbt = DECOMPRESSORS.get().decompress(ByteBuffer.wrap(Files.readAllBytes(file)), RegionFile.GZIP);
+                NbtReader.read(nbt, finder(result, file.toString()));
+                return result;
+            }
+
+            try (RegionFile region = RegionFile.open(file)) {
+                for (int index = 0; index < RegionFile.CHUNKS; index++) {
+                    if (!region.hasChunk(index)) continue;
+
+                    String where = file + " [" + region.chunkX(index) + ", " + region.chunkZ(index) + "]";
+                    try {
+                        NbtReader.read(region.readChunk(index, DECOMPRESSORS.get()), finder(result, where));
+                        result.chunks++;
+                    } catch (IOException | RuntimeException e) {
+                        result.errors.add(where + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            result.errors.add(file + ": " + e.getMessage());
+        }
+        return result;
+    }
+
+    private CustomItemFinder finder(Result result, String where) {
+        return new CustomItemFinder(namespace, (item, amount) -> {
+            long[] total = result.totals.computeIfAbsent(item, key -> new long[2]);
+            total[0]++;
+            total[1] += amount;
+            if (collectLocations) result.locations.add(new Location(item, amount, where));
+        });
+    }
+
+    /**
+     * Where a stack was found.
+     *
+     * @param item The item as {@code namespace:ItemName}.
+     * @param amount The amount in the stack.
+     * @param where The file, and the chunk for region files.
+     */
+    public record Location(String item, int amount, String where) {
+    }
+
+    /**
+     * Totals of a scan.
+     */
+    public static final class Result {
+
+        private final Map<String, long[]> totals = new TreeMap<>();
+        private final List<Location> locations = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+        private long files;
+        private long chunks;
+        private long bytes;
+
+        /**
+         * Retrieves the totals per item as {@code [stacks, items]}.
+         *
+         * @return The totals, sorted by item.
+         */
+        public Map<String, long[]> getTotals() {
+            return totals;
+        }
+
+        public List<Location> getLocations() {
+            return locations;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        public long getFiles() {
+            return files;
+        }
+
+        public long getChunks() {
+            return chunks;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        private Result merge(Result other) {
+            other.totals.forEach((item, total) -> {
+                long[] merged = totals.computeIfAbsent(item, key -> new long[2]);
+                merged[0] += total[0];
+                merged[1] += total[1];
+            });
+            locations.addAll(other.locations);
+            errors.addAll(other.errors);
+            files += other.files;
+            chunks += other.chunks;
+            bytes += other.bytes;
+            return this;
+        }
+    }
+}
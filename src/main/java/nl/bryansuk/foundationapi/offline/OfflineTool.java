@@ -0,0 +1,122 @@
+package nl.bryansuk.foundationapi.offline;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line entry point for working on world files while the server is offline.
+ * <p>
+ * {@code java -jar item-manager.jar scan <world>... [--namespace <plugin>] [--threads <n>] [--locations]}
+ * {@code java -jar item-manager.jar rewrite <world>... --rules <file> [--threads <n>] [--dry-run]}
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public final class OfflineTool {
+
+    private static final String USAGE = """
+            Usage:
+              scan <world>... [--namespace <plugin>] [--threads <n>] [--locations]
+                Counts the custom items in the player data and region files of the given world folders.
+              rewrite <world>... --rules <file> [--threads <n>] [--dry-run]
+                Applies the rules to the custom items in the given world folders. Stop the server and
+                make a backup first.""";
+
+    private OfflineTool() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) exit(USAGE);
+
+        Options options = Options.parse(args);
+        switch (args[0]) {
+            case "scan" -> scan(options);
+            case "rewrite" -> rewrite(options);
+            default -> exit(USAGE);
+        }
+    }
+
+    private static void scan(Options options) throws Exception {
+        long start = System.nanoTime();
+        OfflineScanner.Result result = new OfflineScanner(options.namespace, options.locations, options.threads).scan(options.worlds);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("Scanned %d files, %d chunks, %.1f MB in %.1f s%n",
+                result.getFiles(), result.getChunks(), result.getBytes() / 1_048_576.0, seconds);
+        for (Map.Entry<String, long[]> entry : result.getTotals().entrySet()) {
+            System.out.printf("%-48s %10d stacks %12d items%n", entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+
+        if (options.locations) {
+            for (OfflineScanner.Location location : result.getLocations()) {
+                System.out.printf("%s x%d %s%n", location.item(), location.amount(), location.where());
+            }
+        }
+        printErrors(result.getErrors());
+    }
+
+    private static void rewrite(Options options) throws Exception {
+        if (options.rules == null) exit("Missing --rules <file>\n" + USAGE);
+
+        long start = System.nanoTime();
+        RewriteStats stats = new OfflineRewriter(RewriteRules.load(options.rules), options.dryRun, options.threads).rewrite(options.worlds);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.printf("%s %d of %d files, %d chunks in %.1f s%n", options.dryRun ? "Would change" : "Changed",
+                stats.getChangedFiles(), stats.getFiles(), stats.getChangedChunks(), seconds);
+        System.out.printf("%d stacks renamed, %d stacks removed, %d keys changed%n",
+                stats.getRenamed(), stats.getRemoved(), stats.getKeysChanged());
+        printErrors(stats.getErrors());
+    }
+
+    static void printErrors(List<String> errors) {
+        if (errors.isEmpty()) return;
+
+        System.err.println(errors.size() + " files or chunks could not be read:");
+        for (String error : errors) {
+            System.err.println("  " + error);
+        }
+    }
+
+    static void exit(String message) {
+        System.err.println(message);
+        System.exit(2);
+    }
+
+    static final class Options {
+
+        final List<Path> worlds = new ArrayList<>();
+        String namespace;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean locations;
+        Path rules;
+        boolean dryRun;
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--namespace" -> options.namespace = value(args, ++i);
+                    case "--threads" -> options.threads = Math.max(1, Integer.parseInt(value(args, ++i)));
+                    case "--locations" -> options.locations = true;
+                    case "--rules" -> options.rules = Path.of(value(args, ++i));
+                    case "--dry-run" -> options.dryRun = true;
+                    default -> {
+                        if (args[i].startsWith("--")) exit("Unknown option " + args[i] + "\n" + USAGE);
+                        Path world = Path.of(args[i]);
+                        if (!Files.isDirectory(world)) exit(world + " is not a folder");
+                        options.worlds.add(world);
+                    }
+                }
+            }
+            if (options.worlds.isEmpty()) exit(USAGE);
+            return options;
+        }
+
+        static String value(String[] args, int index) {
+            if (index >= args.length) exit("Missing value for " + args[index - 1]);
+            return args[index];
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package nl.bryansuk.foundationapi.offline;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Read only view of an Anvil region file, mapped into memory.
+ * <p>
+ * A region holds 32 by 32 chunks. The header lists the sector offset of each chunk, the chunk itself is a
+ * length, a compression type and the compressed NBT. Chunks that are too large are stored next to the
+ * region in a {@code c.x.z.mcc} file.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public final class RegionFile implements Closeable {
+
+    public static final int CHUNKS = 1024;
+    static final int SECTOR = 4096;
+    static final int GZIP = 1;
+    static final int ZLIB = 2;
+    static final int NONE = 3;
+    static final int LZ4 = 4;
+    static final int EXTERNAL = 128;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int regionX;
+    private final int regionZ;
+
+    private RegionFile(Path path, FileChannel channel, MappedByteBuffer map, int regionX, int regionZ) {
+        this.path = path;
+        this.channel = channel;
+        this.map = map;
+        this.regionX = regionX;
+        this.regionZ = regionZ;
+    }
+
+    /**
+     * Opens a region file, its coordinates are taken from the {@code r.x.z.mca} file name.
+     *
+     * @param path The region file.
+     * @return The region file.
+     * @throws IOException When the file cannot be mapped.
+     */
+    public static RegionFile open(Path path) throws IOException {
+        String[] parts = path.getFileName().toString().split("\\.");
+        if (parts.length != 4 || !parts[0].equals("r")) throw new IOException("Not a region file name: " + path);
+
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new RegionFile(path, channel, map, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        } catch (IOException | NumberFormatException e) {
+            channel.close();
+            throw e instanceof IOException io ? io : new IOException("Not a region file name: " + path, e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int chunkX(int index){
+        return regionX * 32 + (index & 31);
+    }
+
+    public int chunkZ(int index){
+        return regionZ * 32 + (index >> 5);
+    }
+
+    public boolean hasChunk(int index){
+        return map.capacity() >= SECTOR * 2 && location(index) != 0;
+    }
+
+    /**
+     * Reads a chunk and decompresses it.
+     *
+     * @param index The index of the chunk in the region, {@code x + z * 32}.
+     * @param decompressor The buffers of the calling thread.
+     * @return The uncompressed NBT, or null if the chunk does not exist.
+     * @throws IOException When the chunk is corrupt or uses an unsupported compression.
+     */
+    public ByteBuffer readChunk(int index, Decompressor decompressor) throws IOException {
+        if (!hasChunk(index)) return null;
+
+        int location = location(index);
+        long offset = (long) (location >>> 8) * SECTOR;
+        if (offset + 5 > map.capacity()) throw new IOException("Chunk " + index + " lies outside " + path);
+
+        int length = map.getInt((int) offset);
+        int type = map.get((int) offset + 4) & 0xff;
+        if (length < 1 || offset + 4 + length > map.capacity()) throw new IOException("Chunk " + index + " of " + path + " is truncated");
+
+        // An external chunk only stores its type, the data is in the mcc file
+        if ((type & EXTERNAL) != 0) {
+            return decompressor.decompress(ByteBuffer.wrap(Files.readAllBytes(externalFile(index))), type & ~EXTERNAL);
+        }
+        if (length == 1) throw new IOException("Chunk " + index + " of " + path + " is empty");
+        return decompressor.decompress(map.slice((int) offset + 5, length - 1), type);
+    }
+
+    /**
+     * Retrieves a chunk as stored, its length, compression type and compressed data without sector padding.
+     */
+    ByteBuffer rawChunk(int index) throws IOException {
+        long offset = (long) (location(index) >>> 8) * SECTOR;
+        if (offset + 5 > map.capacity()) throw new IOException("Chunk " + index + " lies outside " + path);
+
+        int length = map.getInt((int) offset);
+        if (length < 1 || offset + 4 + length > map.capacity()) throw new IOException("Chunk " + index + " of " + path + " is truncated");
+        return map.slice((int) offset, length + 4);
+    }
+
+    boolean isExternal(int index) {
+        return (map.get((location(index) >>> 8) * SECTOR + 4) & EXTERNAL) != 0;
+    }
+
+    Path externalFile(int index) {
+        return path.resolveSibling("c." + chunkX(index) + "." + chunkZ(index) + ".mcc");
+    }
+
+    ByteBuffer timestamps() {
+        return map.slice(SECTOR, SECTOR);
+    }
+
+    int location(int index) {
+        return map.getInt(index * 4);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reusable inflater and output buffer, one per thread.
+     */
+    public static final class Decompressor {
+
+        private final Inflater inflater = new Inflater();
+        private byte[] output = new byte[1 << 16];
+
+        public ByteBuffer decompress(ByteBuffer input, int type) throws IOException {
+            switch (type) {
+                case ZLIB -> {
+                    return inflate(input);
+                }
+                case GZIP -> {
+                    byte[] bytes = new byte[input.remaining()];
+                    input.get(bytes);
+                    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                        return ByteBuffer.wrap(in.readAllBytes());
+                    }
+                }
+                case NONE -> {
+                    return input;
+                }
+                case LZ4 -> throw new IOException("LZ4 compressed chunks are not supported");
+                default -> throw new IOException("Unknown chunk compression " + type);
+            }
+        }
+
+        private ByteBuffer inflate(ByteBuffer input) throws IOException {
+            inflater.reset();
+            inflater.setInput(input);
+            int length = 0;
+            try {
+                while (!inflater.finished()) {
+                    if (length == output.length) output = Arrays.copyOf(output, output.length * 2);
+                    int read = inflater.inflate(output, length, output.length - length);
+                    if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IOException("Chunk data ended early");
+                    }
+                    length += read;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Chunk data is corrupt", e);
+            }
+            return ByteBuffer.wrap(output, 0, length);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package nl.bryansuk.foundationapi.offline;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rules for rewriting CustomItems in world files, read from a plain text file with one rule per line.
+ * <pre>
+ * rename     myplugin:OldSword  NewSword
+ * remove     myplugin:RetiredItem
+ * rename-key myplugin:FireSword myplugin:old_charge myplugin:charge
+ * drop-key   *                  myplugin:legacy_flag
+ * set-int    myplugin:*         myplugin:custom_item_version 2
+ * </pre>
+ * Items are selected as {@code namespace:ItemName}, {@code namespace:*} or {@code *}. Rules run in file
+ * order, a rename is seen by the rules below it. Lines starting with {@code #} are ignored.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+public final class RewriteRules {
+
+    private final List<Rule> rules;
+
+    private RewriteRules(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Reads rules from a file.
+     *
+     * @param file The rule file.
+     * @return The rules.
+     * @throws IOException When the file cannot be read.
+     */
+    public static RewriteRules load(Path file) throws IOException {
+        return parse(Files.readAllLines(file));
+    }
+
+    /**
+     * Parses rules from lines.
+     *
+     * @param lines The lines.
+     * @return The rules.
+     */
+    public static RewriteRules parse(List<String> lines){
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String[] parts = line.split("\\s+");
+            Action action = Action.of(parts[0]);
+            if (action == null || parts.length != action.arguments + 2) {
+                throw new IllegalArgumentException("Line " + (i + 1) + " is not a valid rule: " + line);
+            }
+            if (action == Action.SET_INT && !parts[3].matches("-?\\d+")) {
+                throw new IllegalArgumentException("Line " + (i + 1) + " does not set a number: " + line);
+            }
+            rules.add(new Rule(action, parts[1], Arrays.copyOfRange(parts, 2, parts.length)));
+        }
+        if (rules.isEmpty()) throw new IllegalArgumentException("No rules were given");
+        return new RewriteRules(List.copyOf(rules));
+    }
+
+    /**
+     * Checks whether any rule selects an item, used to skip documents without work.
+     *
+     * @param item The item as {@code namespace:ItemName}.
+     * @return True if a rule selects the item.
+     */
+    public boolean concerns(String item){
+        for (Rule rule : rules) {
+            if (rule.selects(item)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Applies the rules to the PublicBukkitValues of one stack.
+     *
+     * @param values The PublicBukkitValues compound.
+     * @param key The {@code namespace:custom_item} key in the compound.
+     * @param stats Receives what was changed.
+     * @return False if the stack has to be removed.
+     */
+    boolean apply(NbtCompound values, String key, RewriteStats stats) {
+        String namespace = key.substring(0, key.indexOf(':'));
+
+        for (Rule rule : rules) {
+            String item = namespace + ":" + values.getString(key);
+            if (!rule.selects(item)) continue;
+
+            String[] args = rule.arguments;
+            switch (rule.action) {
+                case REMOVE -> {
+                    stats.removed++;
+                    return false;
+                }
+                case RENAME -> {
+                    values.put(key, args[0]);
+                    stats.renamed++;
+                }
+                case RENAME_KEY -> {
+                    if (values.containsKey(args[0]) && !args[0].equals(key)) {
+                        values.put(args[1], values.remove(args[0]));
+                        stats.keysChanged++;
+                    }
+                }
+                case DROP_KEY -> {
+                    if (!args[0].equals(key) && values.remove(args[0]) != null) stats.keysChanged++;
+                }
+                case SET_INT -> {
+                    Integer value = Integer.parseInt(args[1]);
+                    if (!value.equals(values.put(args[0], value))) stats.keysChanged++;
+                }
+            }
+        }
+        return true;
+    }
+
+    private enum Action {
+        RENAME("rename", 1),
+        REMOVE("remove", 0),
+        RENAME_KEY("rename-key", 2),
+        DROP_KEY("drop-key", 1),
+        SET_INT("set-int", 2);
+
+        private final String name;
+        private final int arguments;
+
+        Action(String name, int arguments) {
+            this.name = name;
+            this.arguments = arguments;
+        }
+
+        private static Action of(String name) {
+            for (Action action : values()) {
+                if (action.name.equals(name)) return action;
+            }
+            return null;
+        }
+    }
+
+    private record Rule(Action action, String selector, String[] arguments) {
+
+        private boolean selects(String item) {
+            if (selector.equals("*")) return true;
+            if (selector.endsWith(":*")) return item.startsWith(selector.substring(0, selector.length() - 1));
+            return selector.equals(item);
+        }
+    }
+}
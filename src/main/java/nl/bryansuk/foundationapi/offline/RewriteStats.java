@@ -0,0 +1,57 @@
+package nl.bryansuk.foundationapi.offline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Totals of a rewrite.
+ */
+public final class RewriteStats {
+
+    long files;
+    long changedFiles;
+    long changedChunks;
+    long renamed;
+    long removed;
+    long keysChanged;
+    final List<String> errors = new ArrayList<>();
+
+    public long getFiles() {
+        return files;
+    }
+
+    public long getChangedFiles() {
+        return changedFiles;
+    }
+
+    public long getChangedChunks() {
+        return changedChunks;
+    }
+
+    public long getRenamed() {
+        return renamed;
+    }
+
+    public long getRemoved() {
+        return removed;
+    }
+
+    public long getKeysChanged() {
+        return keysChanged;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    RewriteStats merge(RewriteStats other) {
+        files += other.files;
+        changedFiles += other.changedFiles;
+        changedChunks += other.changedChunks;
+        renamed += other.renamed;
+        removed += other.removed;
+        keysChanged += other.keysChanged;
+        errors.addAll(other.errors);
+        return this;
+    }
+}
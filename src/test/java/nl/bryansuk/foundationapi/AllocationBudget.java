@@ -0,0 +1,170 @@
+package nl.bryansuk.foundationapi;
+
+import org.bukkit.event.Event;
+import org.bukkit.inventory.ItemStack;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Guards how much the ItemManager allocates for vanilla items, measured in bytes per call with
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}.
+ * <p>
+ * Every check runs an action after a warmup, so the JIT had the chance to remove allocations that escape
+ * analysis can remove, and keeps the lowest of a few rounds. Checks that exceed their declared budget are
+ * collected, {@link #verify()} fails with all of them at once. Handlers are driven through a
+ * {@link DispatchHarness}, events come from the server stand-in.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class AllocationBudget {
+
+    private static final int ROUNDS = 5;
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final int warmup;
+    private final int iterations;
+    private final List<Result> results = new ArrayList<>();
+    private double overhead;
+
+    /**
+     * Creates a budget checker.
+     *
+     * @param warmup The calls before measuring.
+     * @param iterations The calls per measured round.
+     */
+    public AllocationBudget(int warmup, int iterations) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mxBean)
+                || !mxBean.isThreadAllocatedMemorySupported()) {
+            throw new UnsupportedOperationException("This JVM does not measure allocated bytes per thread");
+        }
+        mxBean.setThreadAllocatedMemoryEnabled(true);
+        this.threads = mxBean;
+        this.warmup = warmup;
+        this.iterations = Math.max(1, iterations);
+        // Whatever the measurement itself allocates is not charged to the checks
+        this.overhead = measure(() -> {});
+    }
+
+    /**
+     * Checks an action against its budget.
+     *
+     * @param name The name in the report.
+     * @param budget The allowed bytes per call.
+     * @param action The action.
+     * @return The result.
+     */
+    public Result check(String name, long budget, Action action){
+        Result result = new Result(name, measure(action), budget);
+        results.add(result);
+        return result;
+    }
+
+    /**
+     * Checks every handler of the ItemManager with an event of a vanilla item, each against its own budget.
+     *
+     * @param harness The harness.
+     * @param events Builds an event with a vanilla item for a handled event type, null skips the type.
+     * @param budgets The allowed bytes per call of every handled event type.
+     * @return The results.
+     * @throws AssertionError When a handled event type has no declared budget.
+     */
+    public List<Result> checkHandlers(DispatchHarness harness, Function<Class<? extends Event>, Event> events,
+                                      Map<Class<? extends Event>, Long> budgets){
+        List<Result> checked = new ArrayList<>();
+        for (Class<? extends Event> type : harness.getHandledEvents()) {
+            Long budget = budgets.get(type);
+            if (budget == null) throw new AssertionError("No allocation budget declared for " + type.getSimpleName());
+
+            Event event = events.apply(type);
+            if (event == null) continue;
+
+            checked.add(check(type.getSimpleName(), budget, () -> harness.fireQuietly(event)));
+        }
+        return checked;
+    }
+
+    /**
+     * Checks {@link ItemMetaComparator#containsAllMeta(ItemStack, ItemStack)} for two stacks.
+     *
+     * @param itemA The first stack.
+     * @param itemB The second stack.
+     * @param budget The allowed bytes per call.
+     * @return The result.
+     */
+    public Result checkComparator(ItemStack itemA, ItemStack itemB, long budget){
+        return check("ItemMetaComparator " + itemA.getType() + " / " + itemB.getType(), budget,
+                () -> ItemMetaComparator.containsAllMeta(itemA, itemB));
+    }
+
+    public List<Result> getResults() {
+        return List.copyOf(results);
+    }
+
+    /**
+     * Fails when any check exceeded its budget.
+     *
+     * @throws AssertionError Listing every check over its budget.
+     */
+    public void verify(){
+        StringBuilder failures = new StringBuilder();
+        for (Result result : results) {
+            if (!result.withinBudget()) failures.append("\n  ").append(result);
+        }
+        if (!failures.isEmpty()) throw new AssertionError("Allocation budget exceeded:" + failures);
+    }
+
+    private double measure(Action action) {
+        long thread = Thread.currentThread().threadId();
+        try {
+            for (int i = 0; i < warmup; i++) {
+                action.run();
+            }
+
+            double lowest = Double.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long before = threads.getThreadAllocatedBytes(thread);
+                for (int i = 0; i < iterations; i++) {
+                    action.run();
+                }
+                long allocated = threads.getThreadAllocatedBytes(thread) - before;
+                lowest = Math.min(lowest, allocated / (double) iterations);
+            }
+            return Math.max(0, lowest - overhead);
+        } catch (Exception e) {
+            throw new IllegalStateException("Measured action failed", e);
+        }
+    }
+
+    /**
+     * A call to measure.
+     */
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * Outcome of one check.
+     *
+     * @param name The name of the check.
+     * @param bytesPerCall The measured bytes per call.
+     * @param budget The allowed bytes per call.
+     */
+    public record Result(String name, double bytesPerCall, long budget) {
+
+        public boolean withinBudget() {
+            // Below one byte per call is rounding of a rare allocation, such as a TLAB refill
+            return bytesPerCall < budget + 1;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + String.format(Locale.ROOT, "%.1f", bytesPerCall) + " bytes per call, budget " + budget;
+        }
+    }
+}
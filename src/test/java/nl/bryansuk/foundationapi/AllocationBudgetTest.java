@@ -0,0 +1,254 @@
+package nl.bryansuk.foundationapi;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.WorldMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import be.seeseemelk.mockbukkit.inventory.SimpleInventoryViewMock;
+import io.papermc.paper.event.block.CompostItemEvent;
+import io.papermc.paper.event.entity.EntityCompostItemEvent;
+import io.papermc.paper.event.entity.EntityDamageItemEvent;
+import io.papermc.paper.event.player.*;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.enchantments.EnchantmentOffer;
+import org.bukkit.entity.ExperienceOrb;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.ItemFrame;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.block.BlockDropItemEvent;
+import org.bukkit.event.enchantment.EnchantItemEvent;
+import org.bukkit.event.enchantment.PrepareItemEnchantEvent;
+import org.bukkit.event.entity.*;
+import org.bukkit.event.inventory.*;
+import org.bukkit.event.player.*;
+import org.bukkit.inventory.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.*;
+import java.util.function.Supplier;
+
+import static java.util.Map.entry;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Declares how many bytes per call the ItemManager may allocate for vanilla items and fails when a path
+ * allocates more, see {@link AllocationBudget}.
+ * <p>
+ * Every handler has a budget, adding a handler without declaring one fails the build. Inventories and
+ * entities the server stand-in has no implementation of are stubbed, see {@link #stub(Class, Map)}. A
+ * handler whose event cannot be built at all has to be listed in {@link #NOT_BUILDABLE} instead of being
+ * skipped silently.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+class AllocationBudgetTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 2_000;
+
+    // Bytes per call with a vanilla item, resolving a stack without meta must not allocate anything
+    private static final Map<Class<? extends Event>, Long> HANDLER_BUDGETS = Map.ofEntries(
+            entry(PlayerInteractEvent.class, 0L),
+            entry(PlayerItemConsumeEvent.class, 0L),
+            entry(ItemMergeEvent.class, 0L),
+            entry(ItemSpawnEvent.class, 0L),
+            entry(ItemDespawnEvent.class, 0L),
+            entry(CraftItemEvent.class, 0L),
+            entry(SmithItemEvent.class, 0L),
+            entry(BlockDropItemEvent.class, 0L),
+            entry(PlayerItemHeldEvent.class, 0L),
+            entry(PlayerItemMendEvent.class, 0L),
+            entry(EnchantItemEvent.class, 0L),
+            entry(EntityDropItemEvent.class, 0L),
+            entry(PlayerDropItemEvent.class, 0L),
+            entry(PlayerItemBreakEvent.class, 0L),
+            entry(EntityPickupItemEvent.class, 0L),
+            entry(PlayerItemDamageEvent.class, 0L),
+            entry(CompostItemEvent.class, 0L),
+            entry(PrepareItemCraftEvent.class, 0L),
+            entry(InventoryMoveItemEvent.class, 0L),
+            entry(PlayerSwapHandItemsEvent.class, 0L),
+            entry(InventoryPickupItemEvent.class, 0L),
+            entry(CartographyItemEvent.class, 0L),
+            entry(PrepareItemEnchantEvent.class, 0L),
+            entry(PlayerPickItemEvent.class, 0L),
+            entry(PlayerAttemptPickupItemEvent.class, 0L),
+            entry(EntityDamageItemEvent.class, 0L),
+            entry(EntityCompostItemEvent.class, 0L),
+            entry(PlayerItemCooldownEvent.class, 0L),
+            entry(PlayerStopUsingItemEvent.class, 0L),
+            entry(EntityRemoveEvent.class, 0L),
+            entry(PlayerItemFrameChangeEvent.class, 0L));
+
+    // Every handled event can be built at the moment
+    private static final Set<Class<? extends Event>> NOT_BUILDABLE = Set.of();
+
+    private static final long COMPARATOR_BUDGET = 0L;
+
+    private ServerMock server;
+    private WorldMock world;
+    private DispatchHarness harness;
+    private AllocationBudget budget;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        world = server.addSimpleWorld("world");
+        harness = new DispatchHarness(MockBukkit.createMockPlugin()).register(new Token());
+        budget = new AllocationBudget(WARMUP, ITERATIONS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void everyHandlerHasABudget() {
+        Set<Class<? extends Event>> missing = new HashSet<>(harness.getHandledEvents());
+        missing.removeAll(HANDLER_BUDGETS.keySet());
+        assertTrue(missing.isEmpty(), "No allocation budget declared for " + missing);
+    }
+
+    @Test
+    void vanillaEventsStayWithinTheirBudget() {
+        Map<Class<? extends Event>, Supplier<Event>> events = vanillaEvents();
+
+        List<AllocationBudget.Result> results = budget.checkHandlers(harness, type -> {
+            Supplier<Event> event = events.get(type);
+            return event == null ? null : event.get();
+        }, HANDLER_BUDGETS);
+
+        Set<Class<? extends Event>> unchecked = new HashSet<>(harness.getHandledEvents());
+        unchecked.removeAll(events.keySet());
+        assertEquals(NOT_BUILDABLE, unchecked, "Handlers without a vanilla event");
+        assertEquals(harness.getHandledEvents().size() - NOT_BUILDABLE.size(), results.size());
+        budget.verify();
+    }
+
+    @Test
+    void comparatorStaysWithinItsBudgetForVanillaItems() {
+        ItemStack stone = new ItemStack(Material.STONE);
+        ItemStack sword = new ItemStack(Material.DIAMOND_SWORD);
+        ItemStack token = ItemManager.getCustomItems().get(0).getCustomItem();
+
+        budget.checkComparator(stone, sword, COMPARATOR_BUDGET);
+        budget.checkComparator(stone, token, COMPARATOR_BUDGET);
+        budget.checkComparator(token, stone, COMPARATOR_BUDGET);
+        budget.verify();
+    }
+
+    /**
+     * Builds one event with only vanilla items for every handler the stand-in can build an event for.
+     */
+    private Map<Class<? extends Event>, Supplier<Event>> vanillaEvents() {
+        PlayerMock player = server.addPlayer();
+        Block block = world.getBlockAt(0, 64, 0);
+        ItemStack stone = new ItemStack(Material.COBBLESTONE);
+        ItemStack tool = new ItemStack(Material.IRON_PICKAXE);
+        Item drop = world.dropItem(block.getLocation(), stone.clone());
+        Item other = world.dropItem(block.getLocation(), stone.clone());
+        Inventory chest = server.createInventory(null, InventoryType.CHEST);
+        Inventory hopper = server.createInventory(null, InventoryType.HOPPER);
+        ItemStack[] matrix = {stone, stone, stone, null, null, null, null, null, null};
+        CraftingInventory crafting = stub(CraftingInventory.class, Map.of("getResult", tool, "getMatrix", matrix,
+                "getSize", 10, "getType", InventoryType.WORKBENCH));
+        SmithingInventory smithing = stub(SmithingInventory.class, Map.of("getResult", tool, "getSize", 4,
+                "getType", InventoryType.SMITHING));
+        CartographyInventory cartography = stub(CartographyInventory.class, Map.of("getResult", new ItemStack(Material.MAP),
+                "getSize", 3, "getType", InventoryType.CARTOGRAPHY));
+        Inventory enchanting = server.createInventory(null, InventoryType.ENCHANTING);
+        InventoryView craftingView = new SimpleInventoryViewMock(player, crafting, player.getInventory(), InventoryType.WORKBENCH);
+        InventoryView smithingView = new SimpleInventoryViewMock(player, smithing, player.getInventory(), InventoryType.SMITHING);
+        InventoryView cartographyView = new SimpleInventoryViewMock(player, cartography, player.getInventory(), InventoryType.CARTOGRAPHY);
+        InventoryView enchantingView = new SimpleInventoryViewMock(player, enchanting, player.getInventory(), InventoryType.ENCHANTING);
+        ExperienceOrb orb = stub(ExperienceOrb.class, Map.of());
+        ItemFrame frame = stub(ItemFrame.class, Map.of());
+
+        Map<Class<? extends Event>, Supplier<Event>> events = new HashMap<>();
+        events.put(PlayerInteractEvent.class, () -> new PlayerInteractEvent(player, Action.RIGHT_CLICK_BLOCK, stone, block, BlockFace.UP));
+        events.put(PlayerItemConsumeEvent.class, () -> new PlayerItemConsumeEvent(player, new ItemStack(Material.BREAD), EquipmentSlot.HAND));
+        events.put(ItemMergeEvent.class, () -> new ItemMergeEvent(drop, other));
+        events.put(ItemSpawnEvent.class, () -> new ItemSpawnEvent(drop));
+        events.put(ItemDespawnEvent.class, () -> new ItemDespawnEvent(drop, drop.getLocation()));
+        events.put(BlockDropItemEvent.class, () -> new BlockDropItemEvent(block, block.getState(), player, new ArrayList<>(List.of(drop, other))));
+        events.put(PlayerItemHeldEvent.class, () -> new PlayerItemHeldEvent(player, 0, 1));
+        events.put(EntityDropItemEvent.class, () -> new EntityDropItemEvent(player, drop));
+        events.put(PlayerDropItemEvent.class, () -> new PlayerDropItemEvent(player, drop));
+        events.put(PlayerItemBreakEvent.class, () -> new PlayerItemBreakEvent(player, tool));
+        events.put(EntityPickupItemEvent.class, () -> new EntityPickupItemEvent(player, drop, 0));
+        events.put(PlayerItemDamageEvent.class, () -> new PlayerItemDamageEvent(player, tool, 1));
+        events.put(CompostItemEvent.class, () -> new CompostItemEvent(block, stone, false));
+        events.put(InventoryMoveItemEvent.class, () -> new InventoryMoveItemEvent(chest, stone, hopper, true));
+        events.put(PlayerSwapHandItemsEvent.class, () -> new PlayerSwapHandItemsEvent(player, stone, tool));
+        events.put(InventoryPickupItemEvent.class, () -> new InventoryPickupItemEvent(hopper, drop));
+        events.put(PlayerPickItemEvent.class, () -> new PlayerPickItemEvent(player, 0, 9));
+        events.put(PlayerAttemptPickupItemEvent.class, () -> new PlayerAttemptPickupItemEvent(player, drop, 0));
+        events.put(EntityDamageItemEvent.class, () -> new EntityDamageItemEvent(player, tool, 1));
+        events.put(EntityCompostItemEvent.class, () -> new EntityCompostItemEvent(player, block, stone, false));
+        events.put(PlayerItemCooldownEvent.class, () -> new PlayerItemCooldownEvent(player, Material.ENDER_PEARL, 20));
+        events.put(PlayerStopUsingItemEvent.class, () -> new PlayerStopUsingItemEvent(player, new ItemStack(Material.BOW), 10));
+        events.put(EntityRemoveEvent.class, () -> new EntityRemoveEvent(drop, EntityRemoveEvent.Cause.DEATH));
+        events.put(CraftItemEvent.class, () -> new CraftItemEvent(new ShapedRecipe(NamespacedKey.minecraft("budget"), tool),
+                craftingView, InventoryType.SlotType.RESULT, 0, ClickType.LEFT, InventoryAction.PICKUP_ALL));
+        events.put(PrepareItemCraftEvent.class, () -> new PrepareItemCraftEvent(crafting, craftingView, false));
+        events.put(SmithItemEvent.class, () -> new SmithItemEvent(smithingView, InventoryType.SlotType.RESULT, 3, ClickType.LEFT, InventoryAction.PICKUP_ALL));
+        events.put(CartographyItemEvent.class, () -> new CartographyItemEvent(cartographyView, InventoryType.SlotType.RESULT, 2, ClickType.LEFT, InventoryAction.PICKUP_ALL));
+        events.put(EnchantItemEvent.class, () -> new EnchantItemEvent(player, enchantingView, block, tool, 1,
+                new HashMap<>(Map.of(Enchantment.EFFICIENCY, 1)), Enchantment.EFFICIENCY, 1, 0));
+        events.put(PrepareItemEnchantEvent.class, () -> new PrepareItemEnchantEvent(player, enchantingView, block, tool,
+                new EnchantmentOffer[3], 0));
+        events.put(PlayerItemMendEvent.class, () -> new PlayerItemMendEvent(player, tool, EquipmentSlot.HAND, orb, 1));
+        events.put(PlayerItemFrameChangeEvent.class, () -> new PlayerItemFrameChangeEvent(player, frame, stone,
+                PlayerItemFrameChangeEvent.ItemFrameChangeAction.PLACE));
+        return events;
+    }
+
+    /**
+     * Stands in for an interface the server stand-in has no implementation of. Methods named in the answers
+     * return that value, every other method returns null, false or zero.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Map<String, Object> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object answer = answers.get(method.getName());
+            if (answer != null) return answer;
+
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> type.getSimpleName() + " stub";
+                default -> defaultValue(method.getReturnType());
+            };
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) return false;
+        if (type == int.class) return 0;
+        if (type == long.class) return 0L;
+        if (type == double.class) return 0D;
+        if (type == float.class) return 0F;
+        if (type == short.class) return (short) 0;
+        if (type == byte.class) return (byte) 0;
+        if (type == char.class) return '\0';
+        return null;
+    }
+
+    static final class Token extends RecordingItem {
+
+        @Override
+        protected ItemStackCreator createRecordedItem() {
+            return new ItemStackCreator(Material.GOLD_NUGGET)
+                    .setName("Token")
+                    .setCustomModelData(2001);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package nl.bryansuk.foundationapi;
+
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drives an ItemManager headless: events are passed straight to its handlers, without a plugin manager or a
+ * running server, and the hooks of {@link RecordingItem}s that ran are collected.
+ * <p>
+ * The ItemManager still needs a server to construct, the harness takes a plugin of an in-memory stand-in such
+ * as MockBukkit. Events can be built directly, they do not need the stand-in to fire them. This is the base
+ * for the load generator and the allocation budgets.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class DispatchHarness {
+
+    private static DispatchHarness active;
+
+    private final ItemManager itemManager;
+    private final List<Invocation> invocations = new ArrayList<>();
+
+    /**
+     * Creates the ItemManager of a plugin and makes this the active harness.
+     *
+     * @param plugin A plugin of the server stand-in.
+     */
+    public DispatchHarness(JavaPlugin plugin) {
+        this.itemManager = new ItemManager(plugin);
+        active = this;
+    }
+
+    public ItemManager getItemManager() {
+        return itemManager;
+    }
+
+    /**
+     * Registers CustomItems with the ItemManager.
+     *
+     * @param items The items.
+     * @return This harness.
+     */
+    public DispatchHarness register(CustomItem... items){
+        for (CustomItem item : items) {
+            itemManager.registerCustomItem(item);
+        }
+        return this;
+    }
+
+    /**
+     * Passes an event to the handlers of the ItemManager.
+     *
+     * @param event The event.
+     * @return The hooks that ran for this event, in order.
+     * @throws EventException When a handler throws.
+     */
+    public List<Invocation> fire(Event event) throws EventException {
+        int from = invocations.size();
+        ItemManager.fire(event);
+        return List.copyOf(invocations.subList(from, invocations.size()));
+    }
+
+    /**
+     * Passes an event to the handlers without collecting hooks, for repeated calls in measurements.
+     *
+     * @param event The event.
+     * @throws EventException When a handler throws.
+     */
+    public void fireQuietly(Event event) throws EventException {
+        ItemManager.fire(event);
+    }
+
+    /**
+     * Resolves the CustomItem of a stack the way the handlers do.
+     *
+     * @param stack The stack.
+     * @return The CustomItem, or null.
+     */
+    public CustomItem resolve(ItemStack stack){
+        return ItemManager.getCustomItem(stack);
+    }
+
+    public Set<Class<? extends Event>> getHandledEvents() {
+        return ItemManager.getHandledEvents();
+    }
+
+    /**
+     * Retrieves every hook that ran since the harness was created or cleared.
+     *
+     * @return The invocations, oldest first.
+     */
+    public List<Invocation> getInvocations() {
+        return List.copyOf(invocations);
+    }
+
+    /**
+     * Checks whether a hook of an item ran.
+     *
+     * @param item The item.
+     * @param hook The name of the hook, for example {@code onInteract}.
+     * @return True if the hook ran.
+     */
+    public boolean ran(CustomItem item, String hook){
+        for (Invocation invocation : invocations) {
+            if (invocation.item() == item && invocation.hook().equals(hook)) return true;
+        }
+        return false;
+    }
+
+    public void clear(){
+        invocations.clear();
+    }
+
+    static void record(Invocation invocation) {
+        if (active != null) active.invocations.add(invocation);
+    }
+
+    /**
+     * One hook call on a CustomItem.
+     *
+     * @param item The item.
+     * @param hook The name of the hook.
+     * @param event The event passed to the hook.
+     */
+    public record Invocation(CustomItem item, String hook, Event event) {
+    }
+}
@@ -0,0 +1,252 @@
+package nl.bryansuk.foundationapi;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.WorldMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import io.papermc.paper.event.block.CompostItemEvent;
+import io.papermc.paper.event.entity.EntityCompostItemEvent;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.entity.Item;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.block.BlockDropItemEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fires events through the ItemManager on MockBukkit and checks which CustomItem hooks ran.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+class ItemManagerDispatchTest {
+
+    private ServerMock server;
+    private WorldMock world;
+    private DispatchHarness harness;
+    private Wand wand;
+    private Charm charm;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        world = server.addSimpleWorld("world");
+        harness = new DispatchHarness(MockBukkit.createMockPlugin());
+        wand = new Wand();
+        charm = new Charm();
+        harness.register(wand, charm);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void resolvesRegisteredItems() {
+        assertSame(wand, harness.resolve(wand.createItem()));
+        assertSame(charm, harness.resolve(charm.createItem()));
+        assertNull(harness.resolve(new ItemStack(Material.STICK)));
+    }
+
+    @Test
+    void interactRunsHookOfCustomItem() throws EventException {
+        PlayerMock player = server.addPlayer();
+        PlayerInteractEvent event = new PlayerInteractEvent(player, Action.RIGHT_CLICK_AIR, wand.createItem(), null, BlockFace.SELF);
+
+        List<DispatchHarness.Invocation> invocations = harness.fire(event);
+
+        assertEquals(1, invocations.size());
+        assertSame(wand, invocations.get(0).item());
+        assertEquals("onInteract", invocations.get(0).hook());
+        assertSame(event, invocations.get(0).event());
+        assertFalse(harness.ran(charm, "onInteract"));
+    }
+
+    @Test
+    void interactWithVanillaItemRunsNoHook() throws EventException {
+        PlayerMock player = server.addPlayer();
+        ItemStack stick = new ItemStack(Material.STICK);
+
+        assertTrue(harness.fire(new PlayerInteractEvent(player, Action.RIGHT_CLICK_AIR, stick, null, BlockFace.SELF)).isEmpty());
+        assertTrue(harness.fire(new PlayerInteractEvent(player, Action.LEFT_CLICK_AIR, null, null, BlockFace.SELF)).isEmpty());
+    }
+
+    @Test
+    void unregisteredItemRunsNoHook() throws EventException {
+        PlayerMock player = server.addPlayer();
+        ItemStack stack = new ItemStack(Material.BLAZE_ROD);
+        ItemMeta meta = stack.getItemMeta();
+        meta.getPersistentDataContainer().set(ItemManager.getNamespacedKey(), PersistentDataType.STRING, "Removed");
+        stack.setItemMeta(meta);
+
+        assertNull(harness.resolve(stack));
+        assertTrue(harness.fire(new PlayerInteractEvent(player, Action.RIGHT_CLICK_AIR, stack, null, BlockFace.SELF)).isEmpty());
+    }
+
+    @Test
+    void playerDropRunsHookOfDroppedItem() throws EventException {
+        PlayerMock player = server.addPlayer();
+        Item drop = world.dropItem(player.getLocation(), charm.createItem());
+        harness.clear();
+
+        List<DispatchHarness.Invocation> invocations = harness.fire(new PlayerDropItemEvent(player, drop));
+
+        assertEquals(1, invocations.size());
+        assertSame(charm, invocations.get(0).item());
+        assertEquals("onPlayerDropItem", invocations.get(0).hook());
+    }
+
+    @Test
+    void blockDropRunsHookOncePerCustomDrop() throws EventException {
+        Block block = world.getBlockAt(0, 64, 0);
+        Location location = block.getLocation();
+
+        List<Item> drops = new ArrayList<>();
+        drops.add(world.dropItem(location, new ItemStack(Material.COBBLESTONE)));
+        drops.add(world.dropItem(location, wand.createItem()));
+        drops.add(world.dropItem(location, charm.createItem()));
+        harness.clear();
+
+        List<DispatchHarness.Invocation> invocations = harness.fire(new BlockDropItemEvent(block, block.getState(), server.addPlayer(), drops));
+
+        assertEquals(2, invocations.size());
+        assertSame(wand, invocations.get(0).item());
+        assertSame(charm, invocations.get(1).item());
+        for (DispatchHarness.Invocation invocation : invocations) {
+            assertEquals("onBlockDropItem", invocation.hook());
+        }
+    }
+
+    @Test
+    void blockDropWithOnlyVanillaDropsRunsNoHook() throws EventException {
+        Block block = world.getBlockAt(0, 64, 0);
+        List<Item> drops = new ArrayList<>();
+        drops.add(world.dropItem(block.getLocation(), new ItemStack(Material.COBBLESTONE)));
+        drops.add(world.dropItem(block.getLocation(), new ItemStack(Material.FLINT)));
+        harness.clear();
+
+        assertTrue(harness.fire(new BlockDropItemEvent(block, block.getState(), server.addPlayer(), drops)).isEmpty());
+    }
+
+    @Test
+    void blockDropRunsEveryHookWhenAHookChangesTheDrops() throws EventException {
+        Sweeper sweeper = new Sweeper();
+        harness.register(sweeper);
+        Block block = world.getBlockAt(0, 64, 0);
+
+        List<Item> drops = new ArrayList<>();
+        drops.add(world.dropItem(block.getLocation(), sweeper.createItem()));
+        drops.add(world.dropItem(block.getLocation(), wand.createItem()));
+        harness.clear();
+
+        List<DispatchHarness.Invocation> invocations = harness.fire(new BlockDropItemEvent(block, block.getState(), server.addPlayer(), drops));
+
+        assertEquals(2, invocations.size());
+        assertSame(sweeper, invocations.get(0).item());
+        assertSame(wand, invocations.get(1).item());
+        assertTrue(drops.isEmpty());
+    }
+
+    @Test
+    void entityCompostRunsHandlersOfTheEventAndItsSuperclass() throws EventException {
+        Block composter = world.getBlockAt(0, 64, 0);
+        List<DispatchHarness.Invocation> invocations = harness.fire(new EntityCompostItemEvent(server.addPlayer(), composter, charm.createItem(), false));
+
+        assertEquals(2, invocations.size());
+        assertTrue(harness.ran(charm, "onCompostItem"));
+        assertTrue(harness.ran(charm, "onEntityCompostItem"));
+    }
+
+    @Test
+    void routedEntityCompostReachesAJoinedNamespaceOnce() {
+        SharedDispatcher dispatcher = server.getServicesManager().load(SharedDispatcher.class);
+        assertNotNull(dispatcher);
+        List<Event> routed = new ArrayList<>();
+        dispatcher.accept("joined", (event, names) -> {
+            assertEquals(1, names.size());
+            routed.add(event);
+        });
+
+        ItemStack seed = new ItemStack(Material.WHEAT_SEEDS);
+        ItemMeta meta = seed.getItemMeta();
+        meta.getPersistentDataContainer().set(new NamespacedKey("joined", "custom_item"), PersistentDataType.STRING, "Seed");
+        seed.setItemMeta(meta);
+        Block composter = world.getBlockAt(0, 64, 0);
+
+        // Reaches the wrappers of onCompostItem and onEntityCompostItem, both find the stack of the namespace
+        EntityCompostItemEvent entityCompost = new EntityCompostItemEvent(server.addPlayer(), composter, seed, false);
+        server.getPluginManager().callEvent(entityCompost);
+        assertEquals(List.of(entityCompost), routed);
+
+        CompostItemEvent compost = new CompostItemEvent(composter, seed, false);
+        server.getPluginManager().callEvent(compost);
+        assertEquals(List.of(entityCompost, compost), routed);
+    }
+
+    @Test
+    void hooksAreRecordedPerItem() throws EventException {
+        PlayerMock player = server.addPlayer();
+        harness.fire(new PlayerInteractEvent(player, Action.RIGHT_CLICK_AIR, wand.createItem(), null, BlockFace.SELF));
+        harness.fire(new PlayerInteractEvent(player, Action.RIGHT_CLICK_AIR, wand.createItem(), null, BlockFace.SELF));
+
+        assertEquals(2, wand.getInvocations().size());
+        assertTrue(charm.getInvocations().isEmpty());
+        assertEquals(2, harness.getInvocations().size());
+
+        harness.clear();
+        assertTrue(harness.getInvocations().isEmpty());
+    }
+
+    static final class Wand extends RecordingItem {
+
+        @Override
+        protected ItemStackCreator createRecordedItem() {
+            return new ItemStackCreator(Material.BLAZE_ROD)
+                    .setName("Wand")
+                    .setCustomModelData(1001);
+        }
+    }
+
+    static final class Sweeper extends RecordingItem {
+
+        @Override
+        protected ItemStackCreator createRecordedItem() {
+            return new ItemStackCreator(Material.BRUSH)
+                    .setName("Sweeper")
+                    .setCustomModelData(1003);
+        }
+
+        @Override
+        public void onBlockDropItem(BlockDropItemEvent event) {
+            super.onBlockDropItem(event);
+            event.getItems().clear();
+        }
+    }
+
+    static final class Charm extends RecordingItem {
+
+        @Override
+        protected ItemStackCreator createRecordedItem() {
+            return new ItemStackCreator(Material.EMERALD)
+                    .setName("Charm")
+                    .setLore("Lucky")
+                    .setCustomModelData(1002);
+        }
+    }
+}
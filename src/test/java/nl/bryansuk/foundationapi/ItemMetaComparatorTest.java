@@ -0,0 +1,135 @@
+package nl.bryansuk.foundationapi;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeModifier;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the rules of the ItemMetaComparator: the first meta has to contain everything the second one sets,
+ * and both need the same custom model data.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+class ItemMetaComparatorTest {
+
+    private MockPlugin plugin;
+
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+        plugin = MockBukkit.createMockPlugin();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void stacksWithoutMetaNeverMatch() {
+        ItemStack plain = new ItemStack(Material.STICK);
+        ItemStack custom = new ItemStackCreator(Material.STICK).setCustomModelData(1).result();
+
+        assertFalse(ItemMetaComparator.containsAllMeta(plain, plain.clone()));
+        assertFalse(ItemMetaComparator.containsAllMeta(plain, custom));
+        assertFalse(ItemMetaComparator.containsAllMeta(custom, plain));
+        assertTrue(ItemMetaComparator.containsAllMeta(custom, custom.clone()));
+    }
+
+    @Test
+    void customModelDataHasToBeEqual() {
+        assertTrue(ItemMetaComparator.containsAllMeta(meta(b -> b.setCustomModelData(3)), meta(b -> b.setCustomModelData(3))));
+        assertFalse(ItemMetaComparator.containsAllMeta(meta(b -> b.setCustomModelData(3)), meta(b -> b.setCustomModelData(4))));
+        assertFalse(ItemMetaComparator.containsAllMeta(meta(b -> b), meta(b -> b)));
+    }
+
+    @Test
+    void displayNameOnlyCountsWhenTheSecondHasOne() {
+        ItemMeta named = meta(b -> b.setName("Wand"));
+        ItemMeta unnamed = meta(b -> b);
+
+        assertTrue(ItemMetaComparator.compareDisplayName(named, unnamed));
+        assertTrue(ItemMetaComparator.compareDisplayName(named, meta(b -> b.setName("Wand"))));
+        assertFalse(ItemMetaComparator.compareDisplayName(unnamed, named));
+        assertFalse(ItemMetaComparator.compareDisplayName(meta(b -> b.setName("Staff")), named));
+    }
+
+    @Test
+    void loreOnlyCountsWhenTheSecondHasOne() {
+        ItemMeta lore = meta(b -> b.setLore(Component.text("Lucky")));
+
+        assertTrue(ItemMetaComparator.compareLore(lore, meta(b -> b)));
+        assertTrue(ItemMetaComparator.compareLore(lore, meta(b -> b.setLore(Component.text("Lucky")))));
+        assertFalse(ItemMetaComparator.compareLore(meta(b -> b), lore));
+    }
+
+    @Test
+    void enchantmentsNeedAtLeastTheLevelOfTheSecond() {
+        ItemMeta sharp = meta(b -> b.addEnchantment(Enchantment.SHARPNESS, 3));
+
+        assertTrue(ItemMetaComparator.containsAllEnchantments(sharp, meta(b -> b.addEnchantment(Enchantment.SHARPNESS, 2))));
+        assertTrue(ItemMetaComparator.containsAllEnchantments(sharp, meta(b -> b)));
+        assertFalse(ItemMetaComparator.containsAllEnchantments(sharp, meta(b -> b.addEnchantment(Enchantment.SHARPNESS, 4))));
+        assertFalse(ItemMetaComparator.containsAllEnchantments(sharp, meta(b -> b.addEnchantment(Enchantment.UNBREAKING, 1))));
+    }
+
+    @Test
+    void itemFlagsOfTheSecondHaveToBePresent() {
+        ItemMeta both = meta(b -> b.addItemFlags(ItemFlag.HIDE_ENCHANTS, ItemFlag.HIDE_ATTRIBUTES));
+
+        assertTrue(ItemMetaComparator.containsAllItemFlags(both, meta(b -> b.addItemFlag(ItemFlag.HIDE_ENCHANTS))));
+        assertFalse(ItemMetaComparator.containsAllItemFlags(meta(b -> b.addItemFlag(ItemFlag.HIDE_ENCHANTS)), both));
+    }
+
+    @Test
+    void attributesOfTheSecondHaveToBePresent() {
+        AttributeModifier modifier = new AttributeModifier(UUID.randomUUID(), "speed", 0.1, AttributeModifier.Operation.ADD_NUMBER);
+        ItemMeta fast = meta(b -> b.addAttribute(Attribute.GENERIC_MOVEMENT_SPEED, modifier));
+
+        assertTrue(ItemMetaComparator.containsAllAttributes(fast, meta(b -> b)));
+        assertTrue(ItemMetaComparator.containsAllAttributes(fast, meta(b -> b.addAttribute(Attribute.GENERIC_MOVEMENT_SPEED, modifier))));
+        assertFalse(ItemMetaComparator.containsAllAttributes(meta(b -> b), fast));
+        assertTrue(ItemMetaComparator.containsAllAttributes(meta(b -> b), meta(b -> b)));
+    }
+
+    @Test
+    void persistentKeysOfTheSecondHaveToBePresent() {
+        NamespacedKey key = new NamespacedKey(plugin, "charges");
+        ItemMeta charged = meta(b -> b.addPersistentData(key, PersistentDataType.INTEGER, 3));
+
+        assertTrue(ItemMetaComparator.equalsPersistentData(charged, meta(b -> b)));
+        // Only the keys are compared, not their values
+        assertTrue(ItemMetaComparator.equalsPersistentData(charged, meta(b -> b.addPersistentData(key, PersistentDataType.INTEGER, 5))));
+        assertFalse(ItemMetaComparator.equalsPersistentData(meta(b -> b), charged));
+    }
+
+    @Test
+    void allRulesHaveToHold() {
+        ItemMeta full = meta(b -> b.setName("Wand").addEnchantment(Enchantment.SHARPNESS, 2).setCustomModelData(9));
+
+        assertTrue(ItemMetaComparator.containsAllMeta(full, meta(b -> b.setCustomModelData(9))));
+        assertTrue(ItemMetaComparator.containsAllMeta(full, meta(b -> b.setName("Wand").setCustomModelData(9))));
+        assertFalse(ItemMetaComparator.containsAllMeta(full, meta(b -> b.setName("Staff").setCustomModelData(9))));
+        assertFalse(ItemMetaComparator.containsAllMeta(full, meta(b -> b.addEnchantment(Enchantment.SHARPNESS, 3).setCustomModelData(9))));
+    }
+
+    private static ItemMeta meta(UnaryOperator<ItemStackCreator> setup) {
+        return setup.apply(new ItemStackCreator(Material.DIAMOND_SWORD)).result().getItemMeta();
+    }
+}
@@ -0,0 +1,149 @@
+package nl.bryansuk.foundationapi;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.MockPlugin;
+import net.kyori.adventure.text.Component;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemFlag;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the setters of the ItemStackCreator end up in the meta of the result, and that empty input is
+ * ignored instead of clearing what was set.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+class ItemStackCreatorTest {
+
+    private MockPlugin plugin;
+
+    @BeforeEach
+    void setUp() {
+        MockBukkit.mock();
+        plugin = MockBukkit.createMockPlugin();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void setsNameAndIgnoresBlankName() {
+        ItemMeta meta = new ItemStackCreator(Material.STICK)
+                .setName("Wand")
+                .setName("  ")
+                .setName((String) null)
+                .result().getItemMeta();
+
+        assertEquals(Component.text("Wand"), meta.displayName());
+    }
+
+    @Test
+    void setsLoreFromStrings() {
+        ItemMeta meta = new ItemStackCreator(Material.STICK)
+                .setLore("First", "Second")
+                .result().getItemMeta();
+
+        assertEquals(List.of(Component.text("First"), Component.text("Second")), meta.lore());
+    }
+
+    @Test
+    void setsLoreFromComponents() {
+        ItemMeta meta = new ItemStackCreator(Material.STICK)
+                .setLore(List.of(Component.text("Line")))
+                .setLore((List<Component>) null)
+                .result().getItemMeta();
+
+        assertEquals(List.of(Component.text("Line")), meta.lore());
+    }
+
+    @Test
+    void setsAmount() {
+        assertEquals(12, new ItemStackCreator(Material.STICK).setAmount(12).result().getAmount());
+    }
+
+    @Test
+    void addsEnchantmentsAboveTheirLimit() {
+        ItemMeta meta = new ItemStackCreator(Material.DIAMOND_SWORD)
+                .addEnchantment(Enchantment.SHARPNESS, 10)
+                .addEnchantments(Map.of(Enchantment.UNBREAKING, 3))
+                .addEnchantment(null, 1)
+                .result().getItemMeta();
+
+        assertEquals(10, meta.getEnchantLevel(Enchantment.SHARPNESS));
+        assertEquals(3, meta.getEnchantLevel(Enchantment.UNBREAKING));
+        assertEquals(2, meta.getEnchants().size());
+    }
+
+    @Test
+    void addsItemFlags() {
+        ItemMeta meta = new ItemStackCreator(Material.DIAMOND_SWORD)
+                .addItemFlag(ItemFlag.HIDE_ENCHANTS)
+                .addItemFlags(ItemFlag.HIDE_ATTRIBUTES)
+                .addItemFlags(List.of(ItemFlag.HIDE_UNBREAKABLE))
+                .result().getItemMeta();
+
+        assertEquals(3, meta.getItemFlags().size());
+        assertTrue(meta.hasItemFlag(ItemFlag.HIDE_UNBREAKABLE));
+    }
+
+    @Test
+    void customModelDataOfMinusOneIsIgnored() {
+        assertFalse(new ItemStackCreator(Material.STICK).setCustomModelData(-1).result().getItemMeta().hasCustomModelData());
+        assertEquals(7, new ItemStackCreator(Material.STICK).setCustomModelData(7).result().getItemMeta().getCustomModelData());
+    }
+
+    @Test
+    void setsUnbreakableAndDurability() {
+        ItemMeta meta = new ItemStackCreator(Material.DIAMOND_PICKAXE)
+                .setUnbreakable(true)
+                .setDurability((short) 25)
+                .result().getItemMeta();
+
+        assertTrue(meta.isUnbreakable());
+        assertEquals(25, ((Damageable) meta).getDamage());
+    }
+
+    @Test
+    void durabilityIsIgnoredForItemsWithoutDamage() {
+        ItemStack stack = new ItemStackCreator(Material.STONE).setDurability((short) 25).result();
+        assertFalse(stack.getItemMeta() instanceof Damageable damageable && damageable.hasDamage());
+    }
+
+    @Test
+    void addsPersistentData() {
+        NamespacedKey key = new NamespacedKey(plugin, "charges");
+        PersistentDataContainer container = new ItemStackCreator(Material.STICK)
+                .addPersistentData(key, PersistentDataType.INTEGER, 3)
+                .addPersistentData(plugin, "owner", PersistentDataType.STRING, "Steve")
+                .result().getItemMeta().getPersistentDataContainer();
+
+        assertEquals(3, container.get(key, PersistentDataType.INTEGER));
+        assertEquals("Steve", container.get(new NamespacedKey(plugin, "owner"), PersistentDataType.STRING));
+    }
+
+    @Test
+    void ignoresIncompletePersistentData() {
+        PersistentDataContainer container = new ItemStackCreator(Material.STICK)
+                .addPersistentData(plugin, " ", PersistentDataType.STRING, "blank")
+                .addPersistentData(plugin, "missing", PersistentDataType.STRING, null)
+                .addPersistentData((NamespacedKey) null, PersistentDataType.STRING, "no key")
+                .result().getItemMeta().getPersistentDataContainer();
+
+        assertTrue(container.isEmpty());
+    }
+}
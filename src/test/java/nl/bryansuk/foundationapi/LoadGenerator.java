@@ -0,0 +1,274 @@
+package nl.bryansuk.foundationapi;
+
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.WorldMock;
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Replays a stream of item events against the ItemManager of a {@link DispatchHarness} and reports how it
+ * holds up: throughput, latency percentiles and the allocation rate.
+ * <p>
+ * A stream is a list of {@link Step}s, either generated from rates per kind of event and a ratio of custom
+ * to vanilla items, or read from a recorded file with one {@code KIND item} line per event, where the item
+ * is the simple name of a CustomItem or {@code -} for a vanilla item. The events themselves are built by an
+ * {@link EventFactory} on the server stand-in, building is left out of every measurement. {@link MockEventFactory}
+ * builds every kind on MockBukkit, {@code LoadGeneratorTest} replays a synthetic stream with it and prints the
+ * report.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public class LoadGenerator {
+
+    private static final int BATCH = 10_000;
+
+    private final DispatchHarness harness;
+    private final EventFactory factory;
+    private final Map<String, ItemStack> stacks = new HashMap<>();
+    private final ItemStack vanilla;
+
+    /**
+     * Creates a generator for the items registered with a harness.
+     *
+     * @param harness The harness, with the CustomItems of the item pack registered.
+     * @param factory Builds the events.
+     * @param vanillaMaterial The material of vanilla items in the stream.
+     */
+    public LoadGenerator(DispatchHarness harness, EventFactory factory, Material vanillaMaterial) {
+        this.harness = harness;
+        this.factory = factory;
+        this.vanilla = new ItemStack(vanillaMaterial);
+        for (CustomItem item : ItemManager.getCustomItems()) {
+            stacks.put(item.getClass().getSimpleName(), item.getCustomItem());
+        }
+    }
+
+    /**
+     * Generates a synthetic stream.
+     *
+     * @param rates The relative rate of every kind of event, kinds without a rate do not occur.
+     * @param customRatio The fraction of events with a CustomItem, between 0 and 1.
+     * @param count The amount of events.
+     * @param seed The seed, the same seed gives the same stream.
+     * @return The stream.
+     */
+    public static List<Step> synthetic(Map<Kind, Double> rates, double customRatio, int count, long seed){
+        List<CustomItem> items = ItemManager.getCustomItems();
+        List<Kind> kinds = new ArrayList<>(rates.keySet());
+        double[] cumulative = new double[kinds.size()];
+        double total = 0;
+        for (int i = 0; i < kinds.size(); i++) {
+            total += rates.get(kinds.get(i));
+            cumulative[i] = total;
+        }
+        if (kinds.isEmpty() || total <= 0) throw new IllegalArgumentException("At least one kind needs a rate above 0");
+
+        Random random = new Random(seed);
+        List<Step> steps = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double roll = random.nextDouble() * total;
+            int kind = 0;
+            while (cumulative[kind] <= roll && kind < kinds.size() - 1) kind++;
+
+            String item = null;
+            if (!items.isEmpty() && random.nextDouble() < customRatio) {
+                item = items.get(random.nextInt(items.size())).getClass().getSimpleName();
+            }
+            steps.add(new Step(kinds.get(kind), item));
+        }
+        return steps;
+    }
+
+    /**
+     * Reads a recorded stream.
+     *
+     * @param file The file.
+     * @return The stream.
+     * @throws IOException When the file cannot be read or has a malformed line.
+     */
+    public static List<Step> read(Path file) throws IOException {
+        List<Step> steps = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+
+            String[] parts = line.strip().split(" ");
+            try {
+                steps.add(new Step(Kind.valueOf(parts[0]), parts.length < 2 || parts[1].equals("-") ? null : parts[1]));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed event in " + file + ": " + line, e);
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Writes a stream, for example a synthetic one to replay it later.
+     *
+     * @param file The file.
+     * @param steps The stream.
+     * @throws IOException When the file cannot be written.
+     */
+    public static void write(Path file, List<Step> steps) throws IOException {
+        StringBuilder out = new StringBuilder("# kind item\n");
+        for (Step step : steps) {
+            out.append(step.kind()).append(' ').append(step.item() == null ? "-" : step.item()).append('\n');
+        }
+        Files.writeString(file, out, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Replays a stream.
+     *
+     * @param steps The stream.
+     * @param warmup The amount of events replayed first without measuring, to let the JIT compile the handlers.
+     * @return The report.
+     * @throws EventException When a handler throws.
+     */
+    public Report run(List<Step> steps, int warmup) throws EventException {
+        for (int i = 0; i < warmup && !steps.isEmpty(); i++) {
+            harness.fireQuietly(event(steps.get(i % steps.size())));
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        HandlerMetrics latency = new HandlerMetrics(Event.class);
+        long elapsed = 0;
+        long allocated = 0;
+        int custom = 0;
+
+        List<Event> batch = new ArrayList<>(BATCH);
+        for (int from = 0; from < steps.size(); from += BATCH) {
+            batch.clear();
+            for (Step step : steps.subList(from, Math.min(steps.size(), from + BATCH))) {
+                batch.add(event(step));
+                if (step.item() != null) custom++;
+            }
+
+            long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+            long batchStart = System.nanoTime();
+            for (Event event : batch) {
+                long start = System.nanoTime();
+                harness.fireQuietly(event);
+                latency.record(System.nanoTime() - start);
+            }
+            elapsed += System.nanoTime() - batchStart;
+            allocated += threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        }
+
+        double seconds = elapsed / 1e9;
+        return new Report(steps.size(), custom, seconds,
+                seconds == 0 ? 0 : steps.size() / seconds,
+                latency.getP50Micros(), latency.getP90Micros(), latency.getP99Micros(), latency.getMaxMicros(),
+                steps.isEmpty() ? 0 : allocated / (double) steps.size(),
+                seconds == 0 ? 0 : allocated / seconds / (1024 * 1024));
+    }
+
+    private Event event(Step step) {
+        ItemStack stack = step.item() == null ? vanilla : stacks.get(step.item());
+        if (stack == null) throw new IllegalArgumentException("No CustomItem named " + step.item() + " is registered");
+        return factory.create(step.kind(), stack.clone());
+    }
+
+    /**
+     * The kinds of events in a stream. Crafting is left out, its events need a crafting view the stand-in
+     * cannot open.
+     */
+    public enum Kind {
+        INTERACT, HOPPER_MOVE, PICKUP, DROP
+    }
+
+    /**
+     * Builds the event of a step on the server stand-in.
+     */
+    @FunctionalInterface
+    public interface EventFactory {
+        Event create(Kind kind, ItemStack stack);
+    }
+
+    /**
+     * Builds every kind of event on MockBukkit. Pickups and drops need a dropped item, one is spawned per
+     * event, so the world grows with the amount of those events in a stream.
+     */
+    public static class MockEventFactory implements EventFactory {
+
+        private final WorldMock world;
+        private final PlayerMock player;
+        private final Location location;
+        private final Inventory chest;
+        private final Inventory hopper;
+
+        public MockEventFactory(ServerMock server) {
+            this.world = server.addSimpleWorld("load");
+            this.player = server.addPlayer();
+            this.location = new Location(world, 0, 64, 0);
+            this.chest = server.createInventory(null, InventoryType.CHEST);
+            this.hopper = server.createInventory(null, InventoryType.HOPPER);
+        }
+
+        @Override
+        public Event create(Kind kind, ItemStack stack) {
+            return switch (kind) {
+                case INTERACT -> new PlayerInteractEvent(player, Action.RIGHT_CLICK_AIR, stack, null, BlockFace.SELF);
+                case HOPPER_MOVE -> new InventoryMoveItemEvent(chest, stack, hopper, true);
+                case PICKUP -> new EntityPickupItemEvent(player, world.dropItem(location, stack), 0);
+                case DROP -> new PlayerDropItemEvent(player, world.dropItem(location, stack));
+            };
+        }
+    }
+
+    /**
+     * One event of a stream.
+     *
+     * @param kind The kind of event.
+     * @param item The simple name of the CustomItem, or null for a vanilla item.
+     */
+    public record Step(Kind kind, @Nullable String item) {
+    }
+
+    /**
+     * Outcome of a replay, only the time spent in the ItemManager is counted.
+     *
+     * @param events The amount of replayed events.
+     * @param customEvents The amount of events with a CustomItem.
+     * @param seconds The time spent in the handlers.
+     * @param eventsPerSecond The throughput.
+     * @param p50Micros The median latency of an event.
+     * @param p90Micros The 90th percentile latency.
+     * @param p99Micros The 99th percentile latency.
+     * @param maxMicros The highest latency.
+     * @param bytesPerEvent The bytes allocated per event.
+     * @param allocationMbPerSecond The allocation rate while replaying.
+     */
+    public record Report(long events, long customEvents, double seconds, double eventsPerSecond,
+                         double p50Micros, double p90Micros, double p99Micros, double maxMicros,
+                         double bytesPerEvent, double allocationMbPerSecond) {
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d events (%d custom) in %.3f s, %.0f events/s, latency p50 %.2f us, "
+                            + "p90 %.2f us, p99 %.2f us, max %.2f us, %.1f bytes/event, %.1f MB/s allocated",
+                    events, customEvents, seconds, eventsPerSecond, p50Micros, p90Micros, p99Micros, maxMicros,
+                    bytesPerEvent, allocationMbPerSecond);
+        }
+    }
+}
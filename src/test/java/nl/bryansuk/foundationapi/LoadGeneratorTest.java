@@ -0,0 +1,90 @@
+package nl.bryansuk.foundationapi;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import org.bukkit.Material;
+import org.bukkit.event.EventException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Replays a synthetic stream through the {@link LoadGenerator} on MockBukkit and prints the report. The
+ * numbers are not checked, only that every event was replayed.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+class LoadGeneratorTest {
+
+    private static final int EVENTS = 20_000;
+    private static final int WARMUP = 5_000;
+
+    private ServerMock server;
+    private DispatchHarness harness;
+
+    @BeforeEach
+    void setUp() {
+        server = MockBukkit.mock();
+        harness = new DispatchHarness(MockBukkit.createMockPlugin()).register(new Relic(), new Rune());
+    }
+
+    @AfterEach
+    void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Test
+    void replaysASyntheticStream() throws EventException {
+        Map<LoadGenerator.Kind, Double> rates = Map.of(
+                LoadGenerator.Kind.INTERACT, 5.0,
+                LoadGenerator.Kind.HOPPER_MOVE, 3.0,
+                LoadGenerator.Kind.PICKUP, 1.0,
+                LoadGenerator.Kind.DROP, 1.0);
+        List<LoadGenerator.Step> steps = LoadGenerator.synthetic(rates, 0.2, EVENTS, 42L);
+        LoadGenerator generator = new LoadGenerator(harness, new LoadGenerator.MockEventFactory(server), Material.COBBLESTONE);
+
+        LoadGenerator.Report report = generator.run(steps, WARMUP);
+        System.out.println(report);
+
+        assertEquals(EVENTS, report.events());
+        assertEquals(steps.stream().filter(step -> step.item() != null).count(), report.customEvents());
+        assertTrue(report.customEvents() > 0);
+    }
+
+    @Test
+    void recordedStreamReadsBackTheSame(@TempDir Path folder) throws IOException {
+        List<LoadGenerator.Step> steps = LoadGenerator.synthetic(Map.of(LoadGenerator.Kind.INTERACT, 1.0, LoadGenerator.Kind.DROP, 1.0), 0.5, 100, 7L);
+        Path file = folder.resolve("stream.txt");
+
+        LoadGenerator.write(file, steps);
+
+        assertEquals(steps, LoadGenerator.read(file));
+    }
+
+    static final class Relic extends RecordingItem {
+
+        @Override
+        protected ItemStackCreator createRecordedItem() {
+            return new ItemStackCreator(Material.NETHER_STAR)
+                    .setName("Relic")
+                    .setCustomModelData(3001);
+        }
+    }
+
+    static final class Rune extends RecordingItem {
+
+        @Override
+        protected ItemStackCreator createRecordedItem() {
+            return new ItemStackCreator(Material.AMETHYST_SHARD)
+                    .setName("Rune")
+                    .setCustomModelData(3002);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package nl.bryansuk.foundationapi;
+
+import io.papermc.paper.event.block.CompostItemEvent;
+import io.papermc.paper.event.entity.EntityCompostItemEvent;
+import io.papermc.paper.event.entity.EntityDamageItemEvent;
+import io.papermc.paper.event.player.*;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.BlockDropItemEvent;
+import org.bukkit.event.enchantment.EnchantItemEvent;
+import org.bukkit.event.enchantment.PrepareItemEnchantEvent;
+import org.bukkit.event.entity.*;
+import org.bukkit.event.inventory.*;
+import org.bukkit.event.player.*;
+import org.bukkit.inventory.Recipe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CustomItem that records every hook the ItemManager calls, for use with the {@link DispatchHarness}.
+ * <p>
+ * Subclasses describe their item in {@link #createRecordedItem()}. A subclass that overrides a hook calls
+ * the super method to keep it recorded.
+ * {@code @Author} ItsRadiiX Aka Bryan Suk
+ */
+@SuppressWarnings("unused")
+public abstract class RecordingItem extends CustomItem {
+
+    private final List<DispatchHarness.Invocation> invocations = new ArrayList<>();
+
+    protected abstract ItemStackCreator createRecordedItem();
+
+    protected List<Recipe> getRecordedRecipes() {
+        return List.of();
+    }
+
+    @Override
+    final ItemStackCreator createItemData() {
+        return createRecordedItem();
+    }
+
+    @Override
+    final List<Recipe> getRecipes() {
+        return getRecordedRecipes();
+    }
+
+    /**
+     * Retrieves the hooks of this item that ran, oldest first.
+     *
+     * @return The invocations.
+     */
+    public List<DispatchHarness.Invocation> getInvocations() {
+        return List.copyOf(invocations);
+    }
+
+    public void clearInvocations() {
+        invocations.clear();
+    }
+
+    protected void record(String hook, Event event) {
+        DispatchHarness.Invocation invocation = new DispatchHarness.Invocation(this, hook, event);
+        invocations.add(invocation);
+        DispatchHarness.record(invocation);
+    }
+
+    @Override
+    public void onInteract(PlayerInteractEvent event) {
+        record("onInteract", event);
+    }
+
+    @Override
+    public void onConsumption(PlayerItemConsumeEvent event) {
+        record("onConsumption", event);
+    }
+
+    @Override
+    public void onItemMerge(ItemMergeEvent event) {
+        record("onItemMerge", event);
+    }
+
+    @Override
+    public void onItemSpawn(ItemSpawnEvent event) {
+        record("onItemSpawn", event);
+    }
+
+    @Override
+    public void onItemDespawn(ItemDespawnEvent event) {
+        record("onItemDespawn", event);
+    }
+
+    @Override
+    public void onItemCraft(CraftItemEvent event) {
+        record("onItemCraft", event);
+    }
+
+    @Override
+    public void onItemSmith(SmithItemEvent event) {
+        record("onItemSmith", event);
+    }
+
+    @Override
+    public void onBlockDropItem(BlockDropItemEvent event) {
+        record("onBlockDropItem", event);
+    }
+
+    @Override
+    public void onPlayerHeldItem(PlayerItemHeldEvent event) {
+        record("onPlayerHeldItem", event);
+    }
+
+    @Override
+    public void onPlayerItemMend(PlayerItemMendEvent event) {
+        record("onPlayerItemMend", event);
+    }
+
+    @Override
+    public void onEnchantItem(EnchantItemEvent event) {
+        record("onEnchantItem", event);
+    }
+
+    @Override
+    public void onEntityDropItem(EntityDropItemEvent event) {
+        record("onEntityDropItem", event);
+    }
+
+    @Override
+    public void onPlayerDropItem(PlayerDropItemEvent event) {
+        record("onPlayerDropItem", event);
+    }
+
+    @Override
+    public void onPlayerItemBreak(PlayerItemBreakEvent event) {
+        record("onPlayerItemBreak", event);
+    }
+
+    @Override
+    public void onEntityPickupItem(EntityPickupItemEvent event) {
+        record("onEntityPickupItem", event);
+    }
+
+    @Override
+    public void onPlayerItemDamage(PlayerItemDamageEvent event) {
+        record("onPlayerItemDamage", event);
+    }
+
+    @Override
+    public void onCompostItem(CompostItemEvent event) {
+        record("onCompostItem", event);
+    }
+
+    @Override
+    public void onPrepareItemCraft(PrepareItemCraftEvent event) {
+        record("onPrepareItemCraft", event);
+    }
+
+    @Override
+    public void onInventoryMoveItem(InventoryMoveItemEvent event) {
+        record("onInventoryMoveItem", event);
+    }
+
+    @Override
+    public void onPlayerSwapHandItems(PlayerSwapHandItemsEvent event) {
+        record("onPlayerSwapHandItems", event);
+    }
+
+    @Override
+    public void onInventoryPickupItem(InventoryPickupItemEvent event) {
+        record("onInventoryPickupItem", event);
+    }
+
+    @Override
+    public void onCartographyItem(CartographyItemEvent event) {
+        record("onCartographyItem", event);
+    }
+
+    @Override
+    public void onPrepareItemEnchant(PrepareItemEnchantEvent event) {
+        record("onPrepareItemEnchant", event);
+    }
+
+    @Override
+    public void onPlayerPickItem(PlayerPickItemEvent event) {
+        record("onPlayerPickItem", event);
+    }
+
+    @Override
+    public void onPlayerAttemptPickupItem(PlayerAttemptPickupItemEvent event) {
+        record("onPlayerAttemptPickupItem", event);
+    }
+
+    @Override
+    public void onEntityDamageItem(EntityDamageItemEvent event) {
+        record("onEntityDamageItem", event);
+    }
+
+    @Override
+    public void onEntityCompostItem(EntityCompostItemEvent event) {
+        record("onEntityCompostItem", event);
+    }
+
+    @Override
+    public void onPlayerItemCooldown(PlayerItemCooldownEvent event) {
+        record("onPlayerItemCooldown", event);
+    }
+
+    @Override
+    public void onPlayerStopUsingItem(PlayerStopUsingItemEvent event) {
+        record("onPlayerStopUsingItem", event);
+    }
+
+    @Override
+    public void onPlayerItemFrameChangeEvent(PlayerItemFrameChangeEvent event) {
+        record("onPlayerItemFrameChangeEvent", event);
+    }
+}